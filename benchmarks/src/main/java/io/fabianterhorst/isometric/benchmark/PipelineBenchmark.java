@@ -0,0 +1,102 @@
+package io.fabianterhorst.isometric.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.fabianterhorst.isometric.Isometric;
+import io.fabianterhorst.isometric.Point;
+
+/**
+ * The stages of a frame: projecting the items, depth sorting them, both of them in a measure,
+ * and finding the item under a touch.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PipelineBenchmark {
+
+    @Param({"PRISM_GRID", "KNOT_STACK", "CYLINDERS", "STAR_EXTRUSIONS"})
+    public String scene;
+
+    @Param({"100", "1000", "10000", "50000"})
+    public int faces;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private Isometric isometric;
+
+    private List<Isometric.Item> items;
+
+    private Point[] touches;
+
+    private int touch;
+
+    private int height;
+
+    @Setup
+    public void setUp() {
+        this.isometric = Scenes.create(this.scene, this.faces);
+        this.isometric.setParallelSort(this.parallel);
+        this.isometric.measure(Scenes.WIDTH, Scenes.HEIGHT, true, false, false);
+        this.items = this.isometric.getCurrentItems();
+        this.height = Scenes.HEIGHT;
+
+        //touch the first vertex of random items, so the hit test always finds something
+        Random random = new Random(7);
+        double[] projected = this.isometric.getProjectedCoordinates();
+        this.touches = new Point[256];
+        for (int i = 0; i < this.touches.length; i++) {
+            int offset = this.items.get(random.nextInt(this.items.size())).getProjectedOffset();
+            this.touches[i] = new Point(projected[offset], projected[offset + 1], 0);
+        }
+    }
+
+    @Benchmark
+    public Object transform() {
+        this.isometric.transformItems(this.items, false, false);
+        return this.isometric.getProjectedCoordinates();
+    }
+
+    /**
+     * A full depth sort of the projected items, nothing is projected.
+     */
+    @Benchmark
+    public Object sort() {
+        this.isometric.sort();
+        return this.isometric.getCurrentItems();
+    }
+
+    /**
+     * A full measure with sorting. Every call changes the height by one pixel, which forces
+     * all items to be projected and sorted again.
+     */
+    @Benchmark
+    public Object measure() {
+        this.height = this.height == Scenes.HEIGHT ? Scenes.HEIGHT + 1 : Scenes.HEIGHT;
+        this.isometric.measure(Scenes.WIDTH, this.height, true, false, false);
+        return this.isometric.getCurrentItems();
+    }
+
+    @Benchmark
+    public Object findItemForPosition() {
+        Point position = this.touches[this.touch++ & (this.touches.length - 1)];
+        return this.isometric.findItemForPosition(position, true, false, 0);
+    }
+}
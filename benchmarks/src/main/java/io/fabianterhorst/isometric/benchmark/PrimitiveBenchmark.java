@@ -0,0 +1,148 @@
+package io.fabianterhorst.isometric.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.fabianterhorst.isometric.Color;
+import io.fabianterhorst.isometric.IntersectionUtils;
+import io.fabianterhorst.isometric.Isometric;
+import io.fabianterhorst.isometric.Point;
+
+/**
+ * The per face helpers the pipeline spends its time in, run over every face (or every pair of
+ * neighbouring faces) of a scene.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PrimitiveBenchmark {
+
+    @Param({"PRISM_GRID", "KNOT_STACK", "CYLINDERS", "STAR_EXTRUSIONS"})
+    public String scene;
+
+    @Param({"100", "1000", "10000"})
+    public int faces;
+
+    private List<Isometric.Item> items;
+
+    private double[] projected;
+
+    private Point[][] polygons;
+
+    //pairs of neighbouring faces as indices into items, and the pairs of two convex faces
+    private int[] pairs, convexPairs;
+
+    private IntersectionUtils.Scratch scratch;
+
+    private Color color;
+
+    @Setup
+    public void setUp() {
+        Isometric isometric = Scenes.create(this.scene, this.faces);
+        isometric.measure(Scenes.WIDTH, Scenes.HEIGHT, true, false, false);
+        this.items = isometric.getCurrentItems();
+        this.projected = isometric.getProjectedCoordinates();
+        this.color = new Color(33, 150, 243);
+
+        this.polygons = new Point[this.items.size()][];
+        for (int i = 0; i < this.polygons.length; i++) {
+            Isometric.Item item = this.items.get(i);
+            Point[] polygon = new Point[item.getProjectedLength()];
+            for (int j = 0; j < polygon.length; j++) {
+                int offset = item.getProjectedOffset() + j * 2;
+                polygon[j] = new Point(this.projected[offset], this.projected[offset + 1], 0);
+            }
+            this.polygons[i] = polygon;
+        }
+
+        this.scratch = new IntersectionUtils.Scratch();
+        int[] pairs = new int[this.items.size() * 16];
+        int[] convexPairs = new int[pairs.length];
+        int pairCount = 0, convexPairCount = 0;
+        for (int i = 0, size = this.items.size(); i < size; i++) {
+            for (int j = i + 1; j < size && j <= i + 8; j++) {
+                pairs[pairCount++] = i;
+                pairs[pairCount++] = j;
+                if (this.items.get(i).getPath().isConvex() && this.items.get(j).getPath().isConvex()) {
+                    convexPairs[convexPairCount++] = i;
+                    convexPairs[convexPairCount++] = j;
+                }
+            }
+        }
+        this.pairs = Arrays.copyOf(pairs, pairCount);
+        this.convexPairs = Arrays.copyOf(convexPairs, convexPairCount);
+    }
+
+    /**
+     * Intersection tests of each face with the next faces in draw order, which are mostly its neighbours.
+     */
+    @Benchmark
+    public void hasIntersection(Blackhole blackhole) {
+        for (int p = 0; p < this.pairs.length; p += 2) {
+            Isometric.Item a = this.items.get(this.pairs[p]);
+            Isometric.Item b = this.items.get(this.pairs[p + 1]);
+            blackhole.consume(IntersectionUtils.hasIntersection(this.projected, a.getProjectedOffset(), a.getProjectedLength(),
+                    this.projected, b.getProjectedOffset(), b.getProjectedLength()));
+        }
+    }
+
+    /**
+     * The exact test of the same pairs with a reused scratch, the way the depth sort calls it.
+     */
+    @Benchmark
+    public void hasPolygonIntersection(Blackhole blackhole) {
+        for (int p = 0; p < this.pairs.length; p += 2) {
+            Isometric.Item a = this.items.get(this.pairs[p]);
+            Isometric.Item b = this.items.get(this.pairs[p + 1]);
+            blackhole.consume(IntersectionUtils.hasPolygonIntersection(this.projected, a.getProjectedOffset(), a.getProjectedLength(),
+                    this.projected, b.getProjectedOffset(), b.getProjectedLength(), this.scratch));
+        }
+    }
+
+    /**
+     * The separating axis test of the pairs of two convex faces.
+     */
+    @Benchmark
+    public void hasConvexIntersection(Blackhole blackhole) {
+        for (int p = 0; p < this.convexPairs.length; p += 2) {
+            Isometric.Item a = this.items.get(this.convexPairs[p]);
+            Isometric.Item b = this.items.get(this.convexPairs[p + 1]);
+            blackhole.consume(IntersectionUtils.hasConvexIntersection(this.projected, a.getProjectedOffset(), a.getProjectedLength(),
+                    this.projected, b.getProjectedOffset(), b.getProjectedLength()));
+        }
+    }
+
+    /**
+     * The same tests through the original Point[] entry point, which allocates per call.
+     */
+    @Benchmark
+    public void hasIntersectionPoints(Blackhole blackhole) {
+        for (int p = 0; p < this.pairs.length; p += 2) {
+            blackhole.consume(IntersectionUtils.hasIntersection(this.polygons[this.pairs[p]], this.polygons[this.pairs[p + 1]]));
+        }
+    }
+
+    @Benchmark
+    public void transformColor(Blackhole blackhole) {
+        for (int i = 0, size = this.items.size(); i < size; i++) {
+            blackhole.consume(Color.transformColor(this.items.get(i).getPath(), this.color));
+        }
+    }
+}
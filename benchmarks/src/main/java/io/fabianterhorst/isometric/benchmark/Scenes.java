@@ -0,0 +1,64 @@
+package io.fabianterhorst.isometric.benchmark;
+
+import java.util.Random;
+
+import io.fabianterhorst.isometric.Color;
+import io.fabianterhorst.isometric.Isometric;
+import io.fabianterhorst.isometric.Point;
+import io.fabianterhorst.isometric.Shape;
+import io.fabianterhorst.isometric.paths.Star;
+import io.fabianterhorst.isometric.shapes.Cylinder;
+import io.fabianterhorst.isometric.shapes.Knot;
+import io.fabianterhorst.isometric.shapes.Prism;
+
+/**
+ * Synthetic scenes for the benchmarks. Every scene is filled with shapes until it has at least
+ * the requested number of faces, all of them are deterministic.
+ */
+final class Scenes {
+
+    static final int WIDTH = 1920;
+    static final int HEIGHT = 1080;
+
+    private Scenes() {
+    }
+
+    static Isometric create(String scene, int faces) {
+        Isometric isometric = new Isometric();
+        Random random = new Random(42);
+        if ("PRISM_GRID".equals(scene)) {
+            //touching unit cubes, the common case of tile based scenes
+            int side = (int) Math.ceil(Math.sqrt(faces / 6.0));
+            for (int i = 0; isometric.getCurrentItems().size() < faces; i++) {
+                add(isometric, new Prism(new Point(i % side, i / side, 0), 1, 1, 1), random);
+            }
+        } else if ("KNOT_STACK".equals(scene)) {
+            //knots stacked in columns of four, a lot of faces that do not fit the plane heuristics well
+            int side = (int) Math.ceil(Math.sqrt(faces / 80.0));
+            for (int i = 0; isometric.getCurrentItems().size() < faces; i++) {
+                int column = i / 4;
+                add(isometric, new Knot(new Point(column % side * 2, column / side * 2, i % 4)), random);
+            }
+        } else if ("CYLINDERS".equals(scene)) {
+            //cylinders with 64 vertices, large caps next to many thin sides
+            int side = (int) Math.ceil(Math.sqrt(faces / 66.0));
+            for (int i = 0; isometric.getCurrentItems().size() < faces; i++) {
+                add(isometric, new Cylinder(new Point(i % side * 1.2, i / side * 1.2, 0), 0.5, 64, 1), random);
+            }
+        } else if ("STAR_EXTRUSIONS".equals(scene)) {
+            //randomly placed, heavily overlapping star prisms with concave caps
+            double area = Math.sqrt(faces / 12.0) * 0.8;
+            while (isometric.getCurrentItems().size() < faces) {
+                Point origin = new Point(random.nextDouble() * area, random.nextDouble() * area, random.nextDouble() * 2);
+                add(isometric, Shape.extrude(new Star(origin, 1, 0.5, 5), 0.5), random);
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown scene " + scene);
+        }
+        return isometric;
+    }
+
+    private static void add(Isometric isometric, Shape shape, Random random) {
+        isometric.add(shape, new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+    }
+}
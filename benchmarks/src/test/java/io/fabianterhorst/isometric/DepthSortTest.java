@@ -0,0 +1,196 @@
+package io.fabianterhorst.isometric;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import io.fabianterhorst.isometric.shapes.Prism;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DepthSortTest {
+
+    private static final int WIDTH = 800, HEIGHT = 600;
+
+    //the observer of the depth sort
+    private static final Point OBSERVER = new Point(-10, -10, 20);
+
+    /**
+     * Number of overlapping pairs where the item drawn later is behind the item drawn first
+     */
+    private static int countViolations(Isometric isometric) {
+        List<Isometric.Item> items = isometric.getCurrentItems();
+        double[] projected = isometric.getProjectedCoordinates();
+        int violations = 0;
+        for (int i = 0; i < items.size(); i++) {
+            Isometric.Item first = items.get(i);
+            for (int j = i + 1; j < items.size(); j++) {
+                Isometric.Item second = items.get(j);
+                if (IntersectionUtils.hasPolygonIntersection(projected, first.getProjectedOffset(), first.getProjectedLength(),
+                        projected, second.getProjectedOffset(), second.getProjectedLength())
+                        && first.getPath().closerThan(second.getPath(), OBSERVER) < 0) {
+                    violations++;
+                }
+            }
+        }
+        return violations;
+    }
+
+    private static List<Isometric.Handle> addGrid(Isometric isometric, int size) {
+        List<Isometric.Handle> handles = new ArrayList<>();
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                handles.add(isometric.add(new Prism(new Point(x, y, 0)), new Color(33, 150, 243)));
+            }
+        }
+        return handles;
+    }
+
+    /**
+     * Move, recolor, remove or add a random prism
+     */
+    private static void change(Isometric isometric, List<Isometric.Handle> handles, Random random) {
+        Isometric.Handle handle = handles.get(random.nextInt(handles.size()));
+        switch (random.nextInt(4)) {
+            case 0:
+                handle.translate(0, 0, random.nextInt(3) - 1);
+                break;
+            case 1:
+                handle.setColor(new Color(random.nextInt(256), 100, 100));
+                break;
+            case 2:
+                handle.remove();
+                handles.remove(handle);
+                break;
+            default:
+                handles.add(isometric.add(new Prism(new Point(random.nextInt(8), random.nextInt(8), 1 + random.nextInt(2))), new Color(160, 60, 50)));
+                break;
+        }
+    }
+
+    private static int countItems(List<Isometric.Handle> handles) {
+        int count = 0;
+        for (Isometric.Handle handle : handles) {
+            count += handle.getItems().size();
+        }
+        return count;
+    }
+
+    @Test
+    public void measureDrawsOverlappingFacesBackToFront() {
+        Isometric isometric = new Isometric();
+        addGrid(isometric, 8);
+        isometric.measure(WIDTH, HEIGHT, true, false, false);
+        assertEquals(8 * 8 * 6, isometric.getCurrentItems().size());
+        assertEquals(0, isometric.getBrokenEdgeCount());
+        assertEquals(0, countViolations(isometric));
+    }
+
+    @Test
+    public void sortKeepsTheOrderOfAMeasure() {
+        Isometric isometric = new Isometric();
+        addGrid(isometric, 6);
+        isometric.measure(WIDTH, HEIGHT, true, false, false);
+        List<Isometric.Item> measured = new ArrayList<>(isometric.getCurrentItems());
+        isometric.sort();
+        assertEquals(measured, isometric.getCurrentItems());
+    }
+
+    @Test
+    public void incrementalMeasureKeepsTheOrderValid() {
+        Isometric isometric = new Isometric();
+        List<Isometric.Handle> handles = addGrid(isometric, 8);
+        isometric.measure(WIDTH, HEIGHT, true, false, false);
+        Random random = new Random(7);
+        for (int step = 0; step < 40; step++) {
+            change(isometric, handles, random);
+            isometric.measure(WIDTH, HEIGHT, true, false, false);
+            assertEquals(countItems(handles), isometric.getCurrentItems().size());
+            assertEquals("step " + step, 0, countViolations(isometric));
+        }
+        //a full sort of the same items is valid as well
+        isometric.sort();
+        assertEquals(0, countViolations(isometric));
+    }
+
+    @Test
+    public void continuedSnapshotsKeepTheOrderValid() {
+        Isometric isometric = new Isometric();
+        List<Isometric.Handle> handles = addGrid(isometric, 8);
+        isometric.measure(WIDTH, HEIGHT, true, false, false);
+        Isometric frame = isometric.snapshot();
+        frame.measure(WIDTH, HEIGHT, true, false, false);
+        Random random = new Random(11);
+        for (int step = 0; step < 20; step++) {
+            change(isometric, handles, random);
+            Isometric next = isometric.snapshot(frame);
+            next.measure(WIDTH, HEIGHT, true, false, false);
+            assertTrue(next.continues(frame));
+            assertEquals(countItems(handles), next.getCurrentItems().size());
+            assertEquals("step " + step, 0, countViolations(next));
+            frame = next;
+
+            //the source keeps sorting incrementally
+            isometric.measure(WIDTH, HEIGHT, true, false, false);
+            assertEquals("step " + step, 0, countViolations(isometric));
+        }
+    }
+
+    @Test
+    public void snapshotsThatAreNeverMeasuredAreSkipped() {
+        Isometric isometric = new Isometric();
+        List<Isometric.Handle> handles = addGrid(isometric, 8);
+        Isometric frame = isometric.snapshot();
+        frame.measure(WIDTH, HEIGHT, true, false, false);
+        Random random = new Random(5);
+        for (int step = 0; step < 10; step++) {
+            change(isometric, handles, random);
+            Isometric skipped = isometric.snapshot(frame);
+            change(isometric, handles, random);
+            Isometric next = isometric.snapshot(skipped);
+            next.measure(WIDTH, HEIGHT, true, false, false);
+            assertTrue(next.continues(frame));
+            assertEquals(countItems(handles), next.getCurrentItems().size());
+            assertEquals("step " + step, 0, countViolations(next));
+            frame = next;
+        }
+    }
+
+    @Test
+    public void snapshotDirtyRegionOnlyCoversChanges() {
+        Isometric isometric = new Isometric();
+        List<Isometric.Handle> handles = addGrid(isometric, 8);
+        Isometric frame = isometric.snapshot();
+        frame.measure(WIDTH, HEIGHT, true, false, false);
+        double[] region = new double[4];
+        frame.takeDirtyRegion(region);
+
+        handles.get(0).setColor(new Color(255, 0, 0));
+        Isometric next = isometric.snapshot(frame);
+        next.measure(WIDTH, HEIGHT, true, false, false);
+        assertTrue(next.takeDirtyRegion(region));
+        assertTrue(region[2] - region[0] < WIDTH / 4);
+        assertTrue(region[3] - region[1] < HEIGHT / 4);
+    }
+
+    @Test
+    public void removedItemsStayOutOfTheirHandle() {
+        Isometric isometric = new Isometric();
+        Isometric.Handle handle = isometric.add(new Prism(new Point(0, 0, 0)), new Color(33, 150, 243));
+        int faces = handle.getItems().size();
+        Isometric.Item removed = handle.getItems().get(0);
+        isometric.remove(removed);
+
+        handle.translate(1, 0, 0);
+        handle.setColor(new Color(160, 60, 50));
+        handle.setVisible(false);
+        handle.setVisible(true);
+        assertEquals(faces - 1, handle.getItems().size());
+        assertEquals(faces - 1, isometric.getCurrentItems().size());
+        assertTrue(!isometric.getCurrentItems().contains(removed));
+        assertEquals(null, removed.getHandle());
+    }
+}
@@ -0,0 +1,84 @@
+package io.fabianterhorst.isometric;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import io.fabianterhorst.isometric.shapes.Prism;
+import io.fabianterhorst.isometric.shapes.Pyramid;
+
+import static org.junit.Assert.assertSame;
+
+public class HitTestTest {
+
+    private static final int WIDTH = 800, HEIGHT = 600;
+
+    private static Isometric createScene() {
+        Isometric isometric = new Isometric();
+        Random random = new Random(3);
+        for (int i = 0; i < 60; i++) {
+            Point origin = new Point(random.nextInt(10) - 2, random.nextInt(10) - 2, random.nextInt(3));
+            if (i % 3 == 0) {
+                isometric.add(new Pyramid(origin), new Color(40, 180, 99));
+            } else {
+                isometric.add(new Prism(origin, 1, 1, 0.5 + random.nextDouble()), new Color(33, 150, 243));
+            }
+        }
+        isometric.measure(WIDTH, HEIGHT, true, false, false);
+        return isometric;
+    }
+
+    /**
+     * The first item along the draw order, or against it, that contains the scene position
+     */
+    private static Isometric.Item scan(Isometric isometric, double x, double y, boolean reverseSort, boolean touchPosition, double radius) {
+        List<Isometric.Item> items = isometric.getCurrentItems();
+        double[] projected = isometric.getProjectedCoordinates();
+        for (int i = 0; i < items.size(); i++) {
+            Isometric.Item item = items.get(reverseSort ? items.size() - 1 - i : i);
+            int offset = item.getProjectedOffset(), length = item.getProjectedLength();
+            if ((touchPosition && IntersectionUtils.isPointCloseToPoly(projected, offset, length, x, y, radius))
+                    || IntersectionUtils.isPointInPoly(projected, offset, length, x, y)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void gridAgreesWithLinearScan() {
+        Isometric isometric = createScene();
+        Random random = new Random(5);
+        for (int i = 0; i < 2000; i++) {
+            double x = random.nextDouble() * WIDTH, y = random.nextDouble() * HEIGHT;
+            boolean reverseSort = i % 2 == 0;
+            assertSame(scan(isometric, x, y, reverseSort, false, 0),
+                    isometric.findItemForPosition(new Point(x, y), reverseSort, false, 0));
+        }
+    }
+
+    @Test
+    public void touchRadiusAgreesWithLinearScan() {
+        Isometric isometric = createScene();
+        Random random = new Random(6);
+        for (int i = 0; i < 2000; i++) {
+            double x = random.nextDouble() * WIDTH, y = random.nextDouble() * HEIGHT;
+            assertSame(scan(isometric, x, y, true, true, 8),
+                    isometric.findItemForPosition(new Point(x, y), true, true, 8));
+        }
+    }
+
+    @Test
+    public void cameraPositionsAreConvertedToTheScene() {
+        Isometric isometric = createScene();
+        isometric.setCamera(2, -150, 40);
+        Random random = new Random(8);
+        for (int i = 0; i < 1000; i++) {
+            double x = random.nextDouble() * WIDTH, y = random.nextDouble() * HEIGHT;
+            Point scene = isometric.translateViewToScenePoint(new Point(x, y));
+            assertSame(scan(isometric, scene.getX(), scene.getY(), true, false, 0),
+                    isometric.findItemForPosition(new Point(x, y), true, false, 0));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package io.fabianterhorst.isometric;
+
+import org.junit.Test;
+
+import io.fabianterhorst.isometric.shapes.Prism;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LightTest {
+
+    private static final Color BLUE = new Color(33, 150, 243);
+
+    private static void assertSameColors(Isometric.Handle expected, Isometric.Handle actual) {
+        assertEquals(expected.getItems().size(), actual.getItems().size());
+        for (int i = 0; i < expected.getItems().size(); i++) {
+            assertEquals(expected.getItems().get(i).color, actual.getItems().get(i).color);
+        }
+    }
+
+    /**
+     * A prism added after the light was set
+     */
+    private static Isometric.Handle lit(Vector lightAngle, Color lightColor) {
+        Isometric isometric = new Isometric();
+        isometric.setLight(lightAngle, lightColor);
+        return isometric.add(new Prism(new Point(0, 0, 0)), BLUE);
+    }
+
+    @Test
+    public void hiddenHandleIsRelitWhenShown() {
+        Isometric isometric = new Isometric();
+        Isometric.Handle visible = isometric.add(new Prism(new Point(0, 0, 0)), BLUE);
+        Isometric.Handle hidden = isometric.add(new Prism(new Point(0, 0, 0)), BLUE);
+        hidden.setVisible(false);
+        int before = hidden.getItems().get(0).color;
+
+        isometric.setLight(new Vector(-1, 2, 1), new Color(255, 200, 120));
+        assertTrue(visible.getItems().get(0).color != before);
+        hidden.setVisible(true);
+        assertSameColors(visible, hidden);
+    }
+
+    @Test
+    public void culledItemsAreRelitWhenAddedAgain() {
+        Isometric isometric = new Isometric();
+        Isometric.Handle culled = isometric.add(new Prism(new Point(0, 0, 0)), BLUE);
+        isometric.measure(800, 600, true, true, false);
+        assertTrue(isometric.getCurrentItems().size() < culled.getItems().size());
+
+        Vector lightAngle = new Vector(1, 1, -2);
+        Color lightColor = new Color(180, 220, 255);
+        isometric.setLight(lightAngle, lightColor);
+        //moving the handle adds its culled faces again
+        culled.translate(0, 0, 0);
+        assertSameColors(lit(lightAngle, lightColor), culled);
+    }
+
+    @Test
+    public void instancesAreRelitWhenShown() {
+        Isometric isometric = new Isometric();
+        Isometric.Handle instances = isometric.addInstances(new Prism(new Point(0, 0, 0)), BLUE, new double[]{0, 0, 0});
+        instances.setVisible(false);
+        Vector lightAngle = new Vector(-2, 1, 1);
+        Color lightColor = new Color(255, 255, 255);
+        isometric.setLight(lightAngle, lightColor);
+        instances.setVisible(true);
+        assertSameColors(lit(lightAngle, lightColor), instances);
+    }
+
+    @Test
+    public void cachedColorsMatchTheCalculatedOnes() {
+        LightingCache cache = new LightingCache();
+        Color lightColor = new Color(180, 220, 255);
+        //percentages that only differ in their last bits
+        double percentage = 0.1;
+        for (int i = 0; i < 2; i++) {
+            double nearby = Math.nextUp(percentage);
+            for (double p : new double[]{percentage, nearby}) {
+                Color cached = cache.lighten(BLUE, p, lightColor);
+                Color calculated = BLUE.lighten(p, lightColor);
+                assertEquals(Double.doubleToLongBits(calculated.r), Double.doubleToLongBits(cached.r));
+                assertEquals(Double.doubleToLongBits(calculated.g), Double.doubleToLongBits(cached.g));
+                assertEquals(Double.doubleToLongBits(calculated.b), Double.doubleToLongBits(cached.b));
+            }
+        }
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.getHitCount());
+    }
+}
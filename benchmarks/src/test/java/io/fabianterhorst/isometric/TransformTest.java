@@ -0,0 +1,83 @@
+package io.fabianterhorst.isometric;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class TransformTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private static void assertPoint(Point expected, Point actual) {
+        assertEquals(expected.getX(), actual.getX(), EPSILON);
+        assertEquals(expected.getY(), actual.getY(), EPSILON);
+        assertEquals(expected.getZ(), actual.getZ(), EPSILON);
+    }
+
+    private static void assertPath(Path expected, Path actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getX(i), actual.getX(i), EPSILON);
+            assertEquals(expected.getY(i), actual.getY(i), EPSILON);
+            assertEquals(expected.getZ(i), actual.getZ(i), EPSILON);
+        }
+    }
+
+    @Test
+    public void identityKeepsPoints() {
+        Point point = new Point(1.5, -2, 3);
+        assertPoint(point, Transform.IDENTITY.apply(point));
+    }
+
+    @Test
+    public void stepsMatchPointOperations() {
+        Random random = new Random(1);
+        for (int i = 0; i < 200; i++) {
+            Point point = new Point(random.nextDouble() * 10 - 5, random.nextDouble() * 10 - 5, random.nextDouble() * 10 - 5);
+            Point origin = new Point(random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2);
+            double angle = random.nextDouble() * Math.PI * 2;
+            assertPoint(point.rotateX(origin, angle), new Transform().rotateX(origin, angle).apply(point));
+            assertPoint(point.rotateY(origin, angle), new Transform().rotateY(origin, angle).apply(point));
+            assertPoint(point.rotateZ(origin, angle), new Transform().rotateZ(origin, angle).apply(point));
+            assertPoint(point.scale(origin, 1.5, 0.5, 2), new Transform().scale(origin, 1.5, 0.5, 2).apply(point));
+            assertPoint(point.scale(origin, 3), new Transform().scale(origin, 3).apply(point));
+            assertPoint(point.translate(1, -2, 0.5), new Transform().translate(1, -2, 0.5).apply(point));
+        }
+    }
+
+    @Test
+    public void chainMatchesPointOperationsInOrder() {
+        Random random = new Random(2);
+        for (int i = 0; i < 200; i++) {
+            Point point = new Point(random.nextDouble() * 10 - 5, random.nextDouble() * 10 - 5, random.nextDouble() * 10 - 5);
+            Point origin = new Point(random.nextDouble(), random.nextDouble(), random.nextDouble());
+            double a = random.nextDouble() * Math.PI, b = random.nextDouble() * Math.PI, c = random.nextDouble() * Math.PI;
+            Point expected = point.rotateX(origin, a).scale(origin, 2, 1, 0.5).rotateY(origin, b).translate(3, 0, -1).rotateZ(origin, c);
+            Transform transform = new Transform().rotateX(origin, a).scale(origin, 2, 1, 0.5).rotateY(origin, b)
+                    .translate(3, 0, -1).rotateZ(origin, c);
+            assertPoint(expected, transform.apply(point));
+            assertPoint(expected, point.transform(transform));
+        }
+    }
+
+    @Test
+    public void thenAppliesTheOtherTransformSecond() {
+        Point origin = new Point(1, 2, 3), point = new Point(-1, 4, 2);
+        Transform first = new Transform().rotateZ(origin, 0.7), second = new Transform().scale(origin, 2);
+        assertPoint(second.apply(first.apply(point)), first.then(second).apply(point));
+    }
+
+    @Test
+    public void pathsMatchTheirPointOperations() {
+        Point origin = new Point(0.5, 0.5, 0);
+        Path path = new Path(new Point[]{new Point(0, 0, 0), new Point(1, 0, 0), new Point(1, 1, 0.5), new Point(0, 1, 1)});
+        Path expected = path.rotateZ(origin, 0.3).scale(origin, 1, 2, 1).rotateX(origin, 1.1).translate(0, 0, 2);
+        Transform transform = new Transform().rotateZ(origin, 0.3).scale(origin, 1, 2, 1).rotateX(origin, 1.1).translate(0, 0, 2);
+        assertPath(expected, path.transform(transform));
+        assertPath(expected, new PackedPath(path).transform(transform));
+        assertPath(new PackedPath(path).rotateZ(origin, 0.3).scale(origin, 1, 2, 1).rotateX(origin, 1.1).translate(0, 0, 2),
+                expected);
+    }
+}
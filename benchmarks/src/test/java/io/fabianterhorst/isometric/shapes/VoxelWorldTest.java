@@ -0,0 +1,95 @@
+package io.fabianterhorst.isometric.shapes;
+
+import org.junit.Test;
+
+import io.fabianterhorst.isometric.Color;
+import io.fabianterhorst.isometric.Isometric;
+
+import static org.junit.Assert.assertEquals;
+
+public class VoxelWorldTest {
+
+    private static final Color STONE = new Color(120, 120, 120), GRASS = new Color(50, 160, 60);
+
+    @Test
+    public void singleBlockShowsAllFaces() {
+        Isometric isometric = new Isometric();
+        VoxelWorld world = new VoxelWorld();
+        world.setBlock(3, 4, 5, STONE);
+        world.update(isometric);
+        assertEquals(6, world.getFaceCount());
+        assertEquals(6, isometric.getCurrentItems().size());
+    }
+
+    @Test
+    public void touchingFacesAreHidden() {
+        Isometric isometric = new Isometric();
+        VoxelWorld world = new VoxelWorld();
+        world.setBlock(0, 0, 0, STONE);
+        world.setBlock(1, 0, 0, STONE);
+        world.update(isometric);
+        assertEquals(10, world.getFaceCount());
+
+        for (int x = 0; x < 2; x++) {
+            for (int y = 0; y < 2; y++) {
+                for (int z = 0; z < 2; z++) {
+                    world.setBlock(x, y, z, GRASS);
+                }
+            }
+        }
+        world.update(isometric);
+        assertEquals(24, world.getFaceCount());
+        assertEquals(24, isometric.getCurrentItems().size());
+    }
+
+    @Test
+    public void facesBetweenChunksAreHidden() {
+        Isometric isometric = new Isometric();
+        VoxelWorld world = new VoxelWorld();
+        world.setBlock(VoxelWorld.CHUNK_SIZE - 1, 0, 0, STONE);
+        world.update(isometric);
+        world.setBlock(VoxelWorld.CHUNK_SIZE, 0, 0, STONE);
+        world.update(isometric);
+        assertEquals(10, world.getFaceCount());
+        assertEquals(2, world.getHandles().size());
+    }
+
+    @Test
+    public void slabHasOneHandlePerChunk() {
+        Isometric isometric = new Isometric();
+        VoxelWorld world = new VoxelWorld();
+        int size = 2 * VoxelWorld.CHUNK_SIZE, height = 8;
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                for (int z = 0; z < height; z++) {
+                    world.setBlock(x, y, z, z == height - 1 ? GRASS : STONE);
+                }
+            }
+        }
+        world.update(isometric);
+        //top and bottom plus the four sides
+        assertEquals(2 * size * size + 4 * size * height, world.getFaceCount());
+        assertEquals(4, world.getHandles().size());
+
+        //digging a hole in the top exposes the four walls and the floor of the hole
+        world.setBlock(5, 5, height - 1, null);
+        world.update(isometric);
+        assertEquals(2 * size * size + 4 * size * height + 4, world.getFaceCount());
+        assertEquals(world.getFaceCount(), isometric.getCurrentItems().size());
+    }
+
+    @Test
+    public void removingAllBlocksRemovesAllFaces() {
+        Isometric isometric = new Isometric();
+        VoxelWorld world = new VoxelWorld();
+        world.setBlock(0, 0, 0, STONE);
+        world.setBlock(20, 0, 0, STONE);
+        world.update(isometric);
+        world.setBlock(0, 0, 0, null);
+        world.setBlock(20, 0, 0, null);
+        world.update(isometric);
+        assertEquals(0, world.getFaceCount());
+        assertEquals(0, world.getHandles().size());
+        assertEquals(0, isometric.getCurrentItems().size());
+    }
+}
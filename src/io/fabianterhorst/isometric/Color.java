@@ -10,6 +10,14 @@ public class Color {
 
     private static final double colorDifference = 0.20;
 
+    //one cache per thread, the caches are not synchronized
+    private static final ThreadLocal<LightingCache> lightingCache = new ThreadLocal<LightingCache>() {
+        @Override
+        protected LightingCache initialValue() {
+            return new LightingCache();
+        }
+    };
+
     public Color(double r, double g, double b, double a) {
         this.r = r;
         this.g = g;
@@ -67,16 +75,49 @@ public class Color {
     }*/
 
     public static Color transformColor(Path path, Color color) {
-        Point p1 = path.points[1];
-        Point p2 = path.points[0];
-        double i = p2.x - p1.x;
-        double j = p2.y - p1.y;
-        double k = p2.z - p1.z;
-        p1 = path.points[2];
-        p2 = path.points[1];
-        double i2 = p2.x - p1.x;
-        double j2 = p2.y - p1.y;
-        double k2 = p2.z - p1.z;
+        return light(color, brightness(faceNormal(path), Isometric.DEFAULT_LIGHT_ANGLE), Isometric.DEFAULT_LIGHT_COLOR, lightingCache.get());
+    }
+
+    /**
+     * Light the same color for many paths at once, result[i] is transformColor(paths[i], color)
+     */
+    public static Color[] transformColors(Path[] paths, Color color) {
+        Color[] result = new Color[paths.length];
+        LightingCache cache = lightingCache.get();
+        for (int i = 0; i < paths.length; i++) {
+            result[i] = light(color, brightness(faceNormal(paths[i]), Isometric.DEFAULT_LIGHT_ANGLE), Isometric.DEFAULT_LIGHT_COLOR, cache);
+        }
+        return result;
+    }
+
+    /**
+     * The cache of the calling thread used by transformColor, e.g. to clear it after building a large scene
+     */
+    public static LightingCache getLightingCache() {
+        return lightingCache.get();
+    }
+
+    /**
+     * Light a color for a face with the given brightness, see brightness(Vector, Vector)
+     */
+    static Color light(Color color, double brightness, Color lightColor, LightingCache cache) {
+        return cache.lighten(color, brightness * colorDifference, lightColor);
+    }
+
+    static double brightness(Vector faceNormal, Vector lightAngle) {
+        return faceNormal.i * lightAngle.i + faceNormal.j * lightAngle.j + faceNormal.k * lightAngle.k;
+    }
+
+    /**
+     * Unit normal of the first three points of a path, the zero vector for degenerate paths
+     */
+    static Vector faceNormal(Path path) {
+        double i = path.getX(0) - path.getX(1);
+        double j = path.getY(0) - path.getY(1);
+        double k = path.getZ(0) - path.getZ(1);
+        double i2 = path.getX(1) - path.getX(2);
+        double j2 = path.getY(1) - path.getY(2);
+        double k2 = path.getZ(1) - path.getZ(2);
         double i3 = j * k2 - j2 * k;
         double j3 = -1 * (i * k2 - i2 * k);
         double k3 = i * j2 - i2 * j;
@@ -84,8 +125,14 @@ public class Color {
         i = magnitude == 0 ? 0 : i3 / magnitude;
         j = magnitude == 0 ? 0 : j3 / magnitude;
         k = magnitude == 0 ? 0 : k3 / magnitude;
-        double brightness = i * Isometric.lightAngle.i + j * Isometric.lightAngle.j + k * Isometric.lightAngle.k;
-        return color.lighten(brightness * colorDifference, Isometric.lightColor);
+        return new Vector(i, j, k);
+    }
+
+    /**
+     * The color in packed ARGB format, like android.graphics.Color.argb
+     */
+    public int toArgb() {
+        return ((int) this.a << 24) | ((int) this.r << 16) | ((int) this.g << 8) | (int) this.b;
     }
 
     private double min(double a, double b, double c) {
@@ -0,0 +1,24 @@
+package io.fabianterhorst.isometric;
+
+/**
+ * Shape or path with curves that keeps its parameters, so it can be tessellated with any number of
+ * vertices per curve. With level of detail enabled, Isometric picks the number from the size of the
+ * curves on the screen.
+ */
+public interface Curved {
+
+    /**
+     * Radius of the curves in scene units
+     */
+    double getCurveRadius();
+
+    /**
+     * Vertices per curve the shape was created with, the level of detail never uses more
+     */
+    int getMaxVertices();
+
+    /**
+     * The paths with the given number of vertices per curve
+     */
+    Path[] tessellate(int vertices);
+}
@@ -8,6 +8,37 @@ public class IntersectionUtils {
 
     }
 
+    /**
+     * Reusable arrays for hasPolygonIntersection, so the test does not allocate.
+     * A Scratch must not be shared between threads.
+     */
+    public static class Scratch {
+
+        double[] deltaAX = new double[0], deltaAY = new double[0], rA = new double[0];
+        double[] deltaBX = new double[0], deltaBY = new double[0], rB = new double[0];
+
+        void ensureCapacity(int lengthA, int lengthB) {
+            if (deltaAX.length < lengthA) {
+                deltaAX = new double[lengthA];
+                deltaAY = new double[lengthA];
+                rA = new double[lengthA];
+            }
+            if (deltaBX.length < lengthB) {
+                deltaBX = new double[lengthB];
+                deltaBY = new double[lengthB];
+                rB = new double[lengthB];
+            }
+        }
+    }
+
+    //scratch of the overloads without one, so they do not allocate either
+    private static final ThreadLocal<Scratch> SCRATCH = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+
     public static boolean isPointCloseToPoly(List<Point> poly, double x, double y, double radius) {
 
         Point p = new Point(x,y);
@@ -53,6 +84,216 @@ public class IntersectionUtils {
         return c;
     }
 
+    /**
+     * Check if the point is closer than the radius to an edge of a polygon stored as packed x, y pairs
+     */
+    public static boolean isPointCloseToPoly(double[] poly, int offset, int length, double x, double y, double radius) {
+        double radiusSquared = radius * radius;
+        for (int i = 0, j = length - 1; i < length; j = i++) {
+            double vx = poly[offset + j * 2], vy = poly[offset + j * 2 + 1];
+            double wx = poly[offset + i * 2], wy = poly[offset + i * 2 + 1];
+            //same as Point.distanceToSegmentSquared
+            double dx = wx - vx, dy = wy - vy;
+            double l2 = dx * dx + dy * dy;
+            double t = l2 == 0 ? 0 : ((x - vx) * dx + (y - vy) * dy) / l2;
+            t = t < 0 ? 0 : (t > 1 ? 1 : t);
+            double px = vx + t * dx - x, py = vy + t * dy - y;
+            if (px * px + py * py < radiusSquared) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Point in polygon test for a polygon stored as packed x, y pairs
+     */
+    public static boolean isPointInPoly(double[] poly, int offset, int length, double x, double y) {
+        boolean c = false;
+        for (int i = 0, j = length - 1; i < length; j = i++) {
+            double xi = poly[offset + i * 2], yi = poly[offset + i * 2 + 1];
+            double xj = poly[offset + j * 2], yj = poly[offset + j * 2 + 1];
+            if (((yi <= y && y < yj) || (yj <= y && y < yi))
+                    && (x < (xj - xi) * (y - yi) / (yj - yi) + xi)) {
+                c = !c;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Same test as hasIntersection(Point[], Point[]) for polygons stored as packed x, y pairs,
+     * for example in the projected geometry store of Isometric
+     */
+    public static boolean hasIntersection(double[] pointsA, int offsetA, int lengthA, double[] pointsB, int offsetB, int lengthB) {
+        int i, j;
+        double AminX = pointsA[offsetA];
+        double AminY = pointsA[offsetA + 1];
+        double AmaxX = AminX;
+        double AmaxY = AminY;
+        double BminX = pointsB[offsetB];
+        double BminY = pointsB[offsetB + 1];
+        double BmaxX = BminX;
+        double BmaxY = BminY;
+
+        for (i = 0; i < lengthA; i++) {
+            AminX = Math.min(AminX, pointsA[offsetA + i * 2]);
+            AminY = Math.min(AminY, pointsA[offsetA + i * 2 + 1]);
+            AmaxX = Math.max(AmaxX, pointsA[offsetA + i * 2]);
+            AmaxY = Math.max(AmaxY, pointsA[offsetA + i * 2 + 1]);
+        }
+        for (i = 0; i < lengthB; i++) {
+            BminX = Math.min(BminX, pointsB[offsetB + i * 2]);
+            BminY = Math.min(BminY, pointsB[offsetB + i * 2 + 1]);
+            BmaxX = Math.max(BmaxX, pointsB[offsetB + i * 2]);
+            BmaxY = Math.max(BmaxY, pointsB[offsetB + i * 2 + 1]);
+        }
+
+        if (((AminX <= BminX && BminX <= AmaxX) || (BminX <= AminX && AminX <= BmaxX)) &&
+                ((AminY <= BminY && BminY <= AmaxY) || (BminY <= AminY && AminY <= BmaxY))) {
+            // now let's be more specific
+            return hasPolygonIntersection(pointsA, offsetA, lengthA, pointsB, offsetB, lengthB);
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * The exact part of hasIntersection, for polygons whose bounding boxes are already known to overlap
+     */
+    public static boolean hasPolygonIntersection(double[] pointsA, int offsetA, int lengthA, double[] pointsB, int offsetB, int lengthB) {
+        return hasPolygonIntersection(pointsA, offsetA, lengthA, pointsB, offsetB, lengthB, SCRATCH.get());
+    }
+
+    /**
+     * The exact part of hasIntersection, working in the arrays of the given scratch
+     */
+    public static boolean hasPolygonIntersection(double[] pointsA, int offsetA, int lengthA, double[] pointsB, int offsetB, int lengthB, Scratch scratch) {
+        int i, j;
+        scratch.ensureCapacity(lengthA, lengthB);
+        // edge i goes from point i to point i + 1, the last one closes the polygon
+        double[] deltaAX = scratch.deltaAX;
+        double[] deltaAY = scratch.deltaAY;
+        double[] deltaBX = scratch.deltaBX;
+        double[] deltaBY = scratch.deltaBY;
+
+        double[] rA = scratch.rA;
+        double[] rB = scratch.rB;
+
+        double x, y;
+        for (i = 0; i < lengthA; i++) {
+            x = pointsA[offsetA + i * 2];
+            y = pointsA[offsetA + i * 2 + 1];
+            j = i + 1 == lengthA ? 0 : i + 1;
+            deltaAX[i] = pointsA[offsetA + j * 2] - x;
+            deltaAY[i] = pointsA[offsetA + j * 2 + 1] - y;
+            //equation written as deltaY.x - deltaX.y + r = 0
+            rA[i] = deltaAX[i] * y - deltaAY[i] * x;
+        }
+
+        for (i = 0; i < lengthB; i++) {
+            x = pointsB[offsetB + i * 2];
+            y = pointsB[offsetB + i * 2 + 1];
+            j = i + 1 == lengthB ? 0 : i + 1;
+            deltaBX[i] = pointsB[offsetB + j * 2] - x;
+            deltaBY[i] = pointsB[offsetB + j * 2 + 1] - y;
+            rB[i] = deltaBX[i] * y - deltaBY[i] * x;
+        }
+
+        for (i = 0; i < lengthA; i++) {
+            int a0 = offsetA + i * 2;
+            int a1 = offsetA + (i + 1 == lengthA ? 0 : (i + 1) * 2);
+            for (j = 0; j < lengthB; j++) {
+                if (deltaAX[i] * deltaBY[j] != deltaAY[i] * deltaBX[j]) {
+                    int b0 = offsetB + j * 2;
+                    int b1 = offsetB + (j + 1 == lengthB ? 0 : (j + 1) * 2);
+                    //case when vectors are colinear, or one polygon included in the other, is covered after
+                    //two segments cross each other if and only if the points of the first are on each side of the line defined by the second and vice-versa
+                    if ((deltaAY[i] * pointsB[b0] - deltaAX[i] * pointsB[b0 + 1] + rA[i]) * (deltaAY[i] * pointsB[b1] - deltaAX[i] * pointsB[b1 + 1] + rA[i]) < -0.000000001 &&
+                            (deltaBY[j] * pointsA[a0] - deltaBX[j] * pointsA[a0 + 1] + rB[j]) * (deltaBY[j] * pointsA[a1] - deltaBX[j] * pointsA[a1 + 1] + rB[j]) < -0.000000001) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        for (i = 0; i < lengthA; i++) {
+            if (isPointInPoly(pointsB, offsetB, lengthB, pointsA[offsetA + i * 2], pointsA[offsetA + i * 2 + 1])) {
+                return true;
+            }
+        }
+        for (i = 0; i < lengthB; i++) {
+            if (isPointInPoly(pointsA, offsetA, lengthA, pointsB[offsetB + i * 2], pointsB[offsetB + i * 2 + 1])) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Separating axis test for two convex polygons stored as packed x, y pairs.
+     * Polygons that only touch along an edge or in a point do not intersect. Does not allocate.
+     */
+    public static boolean hasConvexIntersection(double[] pointsA, int offsetA, int lengthA, double[] pointsB, int offsetB, int lengthB) {
+        return classifyConvex(pointsA, offsetA, lengthA, pointsB, offsetB, lengthB) == OVERLAPPING;
+    }
+
+    //results of classifyConvex
+    static final int SEPARATED = 0, TOUCHING = 1, OVERLAPPING = 2;
+
+    /**
+     * Separating axis test for two convex polygons that tells polygons which only touch, within the
+     * rounding tolerance, apart from separated and overlapping ones. Does not allocate.
+     */
+    static int classifyConvex(double[] pointsA, int offsetA, int lengthA, double[] pointsB, int offsetB, int lengthB) {
+        int resultA = separation(pointsA, offsetA, lengthA, pointsB, offsetB, lengthB);
+        if (resultA == SEPARATED) {
+            return SEPARATED;
+        }
+        return Math.min(resultA, separation(pointsB, offsetB, lengthB, pointsA, offsetA, lengthA));
+    }
+
+    /**
+     * Smallest separation of the two polygons along the normals of the edges of polygon A
+     */
+    private static int separation(double[] pointsA, int offsetA, int lengthA, double[] pointsB, int offsetB, int lengthB) {
+        int result = OVERLAPPING;
+        for (int i = 0; i < lengthA; i++) {
+            int a0 = offsetA + i * 2;
+            int a1 = offsetA + (i + 1 == lengthA ? 0 : (i + 1) * 2);
+            double axisX = pointsA[a0 + 1] - pointsA[a1 + 1];
+            double axisY = pointsA[a1] - pointsA[a0];
+            if (axisX == 0 && axisY == 0) {
+                continue;
+            }
+
+            double minA = Double.POSITIVE_INFINITY, maxA = Double.NEGATIVE_INFINITY;
+            for (int k = offsetA, end = offsetA + lengthA * 2; k < end; k += 2) {
+                double projection = axisX * pointsA[k] + axisY * pointsA[k + 1];
+                minA = Math.min(minA, projection);
+                maxA = Math.max(maxA, projection);
+            }
+            double minB = Double.POSITIVE_INFINITY, maxB = Double.NEGATIVE_INFINITY;
+            for (int k = offsetB, end = offsetB + lengthB * 2; k < end; k += 2) {
+                double projection = axisX * pointsB[k] + axisY * pointsB[k + 1];
+                minB = Math.min(minB, projection);
+                maxB = Math.max(maxB, projection);
+            }
+
+            //careful with rounding approximations, the axis is not normalized
+            double epsilon = 0.000000001 * (Math.abs(axisX) + Math.abs(axisY));
+            double gap = Math.max(minB - maxA, minA - maxB);
+            if (gap > epsilon) {
+                return SEPARATED;
+            }
+            if (gap >= -epsilon) {
+                result = TOUCHING;
+            }
+        }
+        return result;
+    }
+
     public static boolean hasIntersection(Point[] pointsA, Point[] pointsB) {
         int i, j, lengthA = pointsA.length, lengthB = pointsB.length, lengthPolyA, lengthPolyB;
         double AminX = pointsA[0].x;
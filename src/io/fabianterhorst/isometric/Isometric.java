@@ -2,18 +2,25 @@ package io.fabianterhorst.isometric;
 
 import android.graphics.Canvas;
 import android.graphics.Paint;
-import androidx.annotation.Nullable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Created by fabianterhorst on 31.03.17.
  */
 
-//Todo: implement item ids to reuse objects for animations
 public class Isometric {
 
     private final double angle, scale;
@@ -27,14 +34,143 @@ public class Isometric {
 
     private List<Item> items = new ArrayList<>();
 
-    static final Vector lightAngle = new Vector(2, -1, 3).normalize();
+    static final Vector DEFAULT_LIGHT_ANGLE = new Vector(2, -1, 3).normalize();
 
-    static final Color lightColor = new Color(255, 255, 255);
+    static final Color DEFAULT_LIGHT_COLOR = new Color(255, 255, 255);
+
+    private Vector lightAngle = DEFAULT_LIGHT_ANGLE;
+
+    private Color lightColor = DEFAULT_LIGHT_COLOR;
+
+    //changes with every relight, items that were not in the list at the time are lit again when they are added
+    private int lightRevision;
+
+    //relighting splits the items into blocks of this size for the fork/join pool
+    private static final int RELIGHT_BLOCK_SIZE = 1024;
 
     private int currentWidth, currentHeight;
 
+    private double cameraZoom = 1, cameraPanX, cameraPanY;
+
+    //points of the item being drawn with the camera applied
+    private double[] cameraPoints = new double[0];
+
+    //paints shared by all items with the same lit color
+    private final PaintPool paintPool = new PaintPool();
+
+    //scene region whose pixels changed since the last takeDirtyRegion
+    private double dirtyMinX = Double.POSITIVE_INFINITY, dirtyMinY = Double.POSITIVE_INFINITY;
+    private double dirtyMaxX = Double.NEGATIVE_INFINITY, dirtyMaxY = Double.NEGATIVE_INFINITY;
+    private boolean dirtyAll = true;
+
+    private int nextHandleId;
+
+    //stroke and anti-aliasing of the canvas paths reach a little outside of the item bounds
+    private static final double DIRTY_PADDING = 2;
+
     protected boolean itemsChanged;
 
+    //counts every change of the items or their colors, a snapshot is outdated when it changed
+    private int revision;
+
+    //level of detail: maximum distance in pixels between a tessellated curve and the real curve,
+    //and the smallest area in square view pixels of a face that is drawn and hit. 0 disables them
+    private double curveTolerance, minFaceArea;
+
+    //handles of curved shapes, tessellated again on measure when the level of detail changes
+    private final List<Handle> curvedHandles = new ArrayList<>();
+
+    //a horizontal circle of radius r projects to an ellipse with a semi-major axis of r * scale * sqrt(1.5)
+    private static final double CURVE_SCREEN_FACTOR = Math.sqrt(1.5);
+
+    //broad phase for the depth sort: rebuilt from the item bounds on every full sort, and kept up to date
+    //item by item for the incremental sorts in between
+    private final SpatialGrid sortGrid = new SpatialGrid();
+    private final ItemGrid changeGrid = new ItemGrid();
+
+    //index over the item bounds in draw order for findItemForPosition, rebuilt on the first lookup after a change
+    private final SpatialGrid hitGrid = new SpatialGrid();
+    private boolean hitGridValid;
+    private int[] hitCandidates = new int[16];
+    private final int[] hitCount = new int[1];
+
+    //offscreen buffer with index + 1 of the front-most item at every pixel (0 for none), rebuilt on the first lookup after a change
+    private boolean idBufferPicking;
+    private double idBufferScale = 1;
+    private RasterRenderTarget idBuffer;
+    private boolean idBufferValid;
+    private double[] idBufferPoints = new double[0];
+
+    //the drawBefore/drawAfter edges of the items are kept between measures,
+    //only the edges of the dirty items are recalculated
+    private boolean graphValid;
+
+    private final List<Item> dirtyItems = new ArrayList<>();
+
+    //the cull and bounds check flags of the last measure, a change projects all items again
+    private boolean measuredCull, measuredBoundsCheck;
+
+    //changes when all items have to be sorted again, a snapshot can only continue one with the same layout
+    private int layoutRevision;
+
+    //the last snapshot taken of this Isometric and the items that changed since, only they are copied for the next one
+    private Isometric lastSnapshot;
+    private final List<Item> snapshotChanges = new ArrayList<>();
+
+    //a snapshot that is not built yet: the snapshot it continues, the copies of the items that changed since
+    //that one was taken (null for removed items) and the curves it tessellates differently. Built by the first measure
+    private Isometric pendingBase;
+    private Map<Item, Item> pendingChanges;
+    private List<LevelOfDetail> pendingLevelOfDetail;
+
+    //a built snapshot: the snapshot its dirty region is relative to, and the tessellations of the curves
+    private Isometric snapshotBase;
+    private Map<Handle, LevelOfDetail> levelOfDetail;
+
+    //copies that measure dropped as culled or out of bounds, or that a continued snapshot left out because
+    //the one before dropped them. Added again when all items are projected
+    private List<Item> outItems;
+
+    //projected geometry store: view coordinates of all items as packed x, y pairs
+    private double[] projected = new double[0];
+    private int projectedSize, projectedGeneration;
+
+    //above this many changed items, relinearizing everything is cheaper than moving them one by one
+    private static final int MAX_INCREMENTAL_INSERTS = 64;
+
+    //room for the positions of the inserted items after every kept item, see insertItems
+    private static final int INSERT_GAP = MAX_INCREMENTAL_INSERTS + 1;
+
+    private static final Point OBSERVER = new Point(-10, -10, 20);
+
+    /**
+     * What to do when the depth order contains cycles, which happens with interlocking faces
+     */
+    public enum CycleBreaking {
+        /**
+         * Draw the item with the fewest unresolved predecessors next and ignore those edges
+         */
+        MIN_IN_DEGREE,
+        /**
+         * Append all items that are left when a cycle is reached at the end, in list order
+         */
+        APPEND
+    }
+
+    private CycleBreaking cycleBreaking = CycleBreaking.MIN_IN_DEGREE;
+
+    //below this many candidate pairs the overlap tests are not worth splitting across threads
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    private static ForkJoinPool sortPool;
+
+    private boolean parallelSort;
+
+    private int brokenEdges;
+
+    //scratch arrays of the topological sort
+    private int[] inDegree = new int[0], successorStart = new int[1], successors = new int[0], queue = new int[0], nextQueue = new int[0];
+
     public Isometric() {
         this.angle = Math.PI / 6;
         this.scale = 70;
@@ -108,43 +244,250 @@ public class Isometric {
                 workingX * this.transformationViewIso[0][1] + workingY * this.transformationViewIso[1][1] - latentZ);
     }
 
-    public void add(Path path, Color color) {
-        addPath(path, color, null);
+    public Handle add(Path path, Color color) {
+        return add(path, color, null);
+    }
+
+    public Handle add(Path path, Color color, Shape originalShape) {
+        Item item = addPath(path, color, originalShape);
+        Handle handle = new Handle(this, new Item[]{item}, color, originalShape);
+        if (path instanceof Curved) {
+            addCurved(handle, (Curved) path);
+        }
+        return handle;
+    }
+
+    public Handle add(Path[] paths, Color color) {
+        return add(paths, color, null);
     }
 
-    public void add(Path path, Color color, Shape originalShape) {
-        addPath(path, color, originalShape);
+    public Handle add(Path[] paths, Color color, Shape originalShape) {
+        return new Handle(this, addItems(paths, color, null, originalShape), color, originalShape);
     }
 
-    public void add(Path[] paths, Color color) {
-        for (Path path : paths) {
-            add(path, color);
+    /**
+     * Add paths with their own colors as one handle, e.g. the faces of a chunk of blocks
+     *
+     * @param colors color of every path, so colors.length has to be paths.length
+     */
+    public Handle add(Path[] paths, Color[] colors, Shape originalShape) {
+        if (colors.length != paths.length) {
+            throw new IllegalArgumentException("Every path needs a color");
         }
+        return new Handle(this, addItems(paths, null, colors, originalShape), null, originalShape);
     }
 
-    public void add(Path[] paths, Color color, Shape originalShape) {
-        for (Path path : paths) {
-            add(path, color, originalShape);
+    /**
+     * Light and add an item per path, with colors[i] or the same color for all of them
+     */
+    private Item[] addItems(Path[] paths, Color color, Color[] colors, Shape originalShape) {
+        Item[] items = new Item[paths.length];
+        LightingCache cache = Color.getLightingCache();
+        for (int i = 0; i < paths.length; i++) {
+            Item item = new Item(paths[i], colors != null ? colors[i] : color, originalShape);
+            item.light(this.lightAngle, this.lightColor, this.lightRevision, cache);
+            addItem(item);
+            items[i] = item;
         }
+        return items;
     }
 
-    public void add(Shape shape, Color color) {
+    public Handle add(Shape shape, Color color) {
         /* Fetch paths ordered by distance to prevent overlaps */
+        Handle handle = add(shape.orderedPaths(), color, shape);
+        if (shape instanceof Curved) {
+            addCurved(handle, (Curved) shape);
+        }
+        return handle;
+    }
+
+    private void addCurved(Handle handle, Curved curve) {
+        handle.curve = curve;
+        handle.curveVertices = curve.getMaxVertices();
+        if (!handle.curveListed) {
+            handle.curveListed = true;
+            this.curvedHandles.add(handle);
+        }
+    }
+
+    /**
+     * Add many translated copies of a shape, e.g. the tiles of a map. The shape's paths, normals and
+     * lit colors are shared by all copies and its projection is only calculated once, every copy
+     * only stores its offset and is projected by moving the shape's projection on the screen.
+     *
+     * @param offsets x, y, z translation of every copy, so offsets.length is three times the number of copies
+     */
+    public Handle addInstances(Shape shape, Color color, double[] offsets) {
+        if (offsets.length % 3 != 0) {
+            throw new IllegalArgumentException("Offsets have to be x, y, z triples");
+        }
         Path[] paths = shape.orderedPaths();
+        Template template = createTemplate(paths);
+        Color[] colors = new Color[paths.length];
+        LightingCache cache = Color.getLightingCache();
+        for (int p = 0; p < paths.length; p++) {
+            colors[p] = Color.light(color, Color.brightness(template.faceNormals[p], this.lightAngle), this.lightColor, cache);
+        }
+        Item[] items = new Item[offsets.length / 3 * paths.length];
+        for (int o = 0; o < offsets.length; o += 3) {
+            for (int p = 0; p < paths.length; p++) {
+                Item item = new Item(paths[p], color, shape, template.faceNormals[p]);
+                item.template = template;
+                item.templatePath = p;
+                item.offsetX = offsets[o];
+                item.offsetY = offsets[o + 1];
+                item.offsetZ = offsets[o + 2];
+                item.baseColor = colors[p];
+                item.color = colors[p].toArgb();
+                item.lightRevision = this.lightRevision;
+                addItem(item);
+                items[o / 3 * paths.length + p] = item;
+            }
+        }
+        return new Handle(this, items, color, shape);
+    }
 
-        for (Path path : paths) {
-            addPath(path, color, shape);
+    /**
+     * Project the paths of a template relative to the origin, see translateIsoToViewPoint
+     */
+    private Template createTemplate(Path[] paths) {
+        Template template = new Template(paths.length);
+        int offset = 0;
+        for (int p = 0; p < paths.length; p++) {
+            Path path = paths[p];
+            template.pointOffsets[p] = offset;
+            template.faceNormals[p] = Color.faceNormal(path);
+            template.convex[p] = path.isConvex();
+            offset += path.size() * 2;
+        }
+        template.points = new double[offset];
+        for (int p = 0; p < paths.length; p++) {
+            Path path = paths[p];
+            offset = template.pointOffsets[p];
+            for (int i = 0, length = path.size(); i < length; i++) {
+                double x = path.getX(i), y = path.getY(i), z = path.getZ(i);
+                template.points[offset + i * 2] = x * this.transformationIsoView[0][0] + y * this.transformationIsoView[1][0];
+                template.points[offset + i * 2 + 1] = -x * this.transformationIsoView[0][1] - y * this.transformationIsoView[1][1] - (z * this.scale);
+            }
         }
+        return template;
     }
 
     public void clear() {
         this.itemsChanged = true;
+        this.layoutRevision++;
+        this.dirtyAll = true;
+        this.graphValid = false;
+        this.dirtyItems.clear();
+        this.changeGrid.invalidate();
+        invalidateLookup();
+        for (Item item : getCurrentItems()) {
+            releasePaint(item);
+            item.attached = false;
+            if (item.handle != null) {
+                item.handle.removed = true;
+            }
+        }
         getCurrentItems().clear();
+        for (int i = 0, size = this.curvedHandles.size(); i < size; i++) {
+            this.curvedHandles.get(i).curveListed = false;
+        }
+        this.curvedHandles.clear();
+        //the next snapshot starts over
+        forgetSnapshotChanges();
+        this.lastSnapshot = null;
+    }
+
+    /**
+     * Remove a single item. Only the depth sort edges of this item are dropped,
+     * the order of the remaining items stays valid. The item is taken out of its handle,
+     * moving or showing the handle does not add it again.
+     */
+    public void remove(Item item) {
+        if (item.handle != null) {
+            item.handle.forget(Collections.singleton(item));
+        }
+        if (getCurrentItems().remove(item)) {
+            this.itemsChanged = true;
+            invalidateLookup();
+            addDirtyRegion(item);
+            item.attached = false;
+            item.dirty = false;
+            detach(item);
+            this.changeGrid.remove(item);
+            releasePaint(item);
+            recordChange(item);
+        }
+    }
+
+    /**
+     * Remove many items with a single pass over the item list, like remove(Item)
+     */
+    public void remove(Collection<Item> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        Set<Item> removed = new HashSet<>(items);
+        Set<Handle> handles = Collections.newSetFromMap(new IdentityHashMap<Handle, Boolean>());
+        for (Item item : removed) {
+            if (item.handle != null) {
+                handles.add(item.handle);
+            }
+        }
+        for (Handle handle : handles) {
+            handle.forget(removed);
+        }
+        removeItems(removed);
+    }
+
+    /**
+     * Remove items from the item list, they stay in their handles
+     */
+    private void removeItems(Collection<Item> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        Set<Item> removed = items instanceof Set ? (Set<Item>) items : new HashSet<>(items);
+        List<Item> currentItems = getCurrentItems();
+        int kept = 0;
+        for (int i = 0, size = currentItems.size(); i < size; i++) {
+            Item item = currentItems.get(i);
+            if (removed.contains(item)) {
+                addDirtyRegion(item);
+                item.attached = false;
+                item.dirty = false;
+                detach(item);
+                this.changeGrid.remove(item);
+                releasePaint(item);
+                recordChange(item);
+            } else {
+                currentItems.set(kept++, item);
+            }
+        }
+        if (kept < currentItems.size()) {
+            currentItems.subList(kept, currentItems.size()).clear();
+            this.itemsChanged = true;
+            invalidateLookup();
+        }
+    }
+
+    protected Item addPath(Path path, Color color, Shape originalShape) {
+        Item item = new Item(path, color, originalShape);
+        item.light(this.lightAngle, this.lightColor, this.lightRevision, Color.getLightingCache());
+        addItem(item);
+        return item;
     }
 
-    protected void addPath(Path path, Color color, Shape originalShape) {
+    private void addItem(Item item) {
+        if (item.lightRevision != this.lightRevision) {
+            //hidden or culled while the light changed
+            light(item);
+        }
+        item.attached = true;
         this.itemsChanged = true;
-        getCurrentItems().add(Item.createItem(path, color, originalShape));
+        invalidateLookup();
+        getCurrentItems().add(item);
+        markDirty(item);
     }
 
     public void measure(int width, int height, boolean sort, boolean cull, boolean boundsCheck) {
@@ -155,18 +498,50 @@ public class Isometric {
         if (this.currentWidth == width && this.currentHeight == height && !this.itemsChanged)
             return;
 
+        if (this.pendingChanges != null) {
+            buildSnapshot();
+        }
+        boolean resized = this.currentWidth != width || this.currentHeight != height;
+
         this.currentWidth = width;
         this.currentHeight = height;
+        updateLevelOfDetail();
         this.itemsChanged = false;
 
         this.originX = width / 2;
         this.originY = height * 0.9;
 
-        transformItems(getCurrentItems(), cull, boundsCheck);
+        //if nothing but some items changed, only those need to be projected and sorted again
+        if (resized || !sort || !this.graphValid || cull != this.measuredCull || boundsCheck != this.measuredBoundsCheck) {
+            this.graphValid = false;
+            if (this.outItems != null) {
+                getCurrentItems().addAll(this.outItems);
+                this.outItems = null;
+            }
+            transformItems(getCurrentItems(), cull, boundsCheck);
+        } else {
+            transformDirtyItems(cull, boundsCheck);
+        }
+        this.measuredCull = cull;
+        this.measuredBoundsCheck = boundsCheck;
 
         if (sort) {
             setCurrentItems(sortPaths());
+        } else {
+            this.graphValid = false;
+        }
+    }
+
+    /**
+     * Depth sort the measured items again from scratch without projecting them, e.g. to time the sort alone.
+     * The items must not have changed since the last measure.
+     */
+    public void sort() {
+        if (this.itemsChanged || this.currentWidth < 0) {
+            throw new IllegalStateException("The items changed since the last measure");
         }
+        this.graphValid = false;
+        setCurrentItems(sortPaths());
     }
 
     /**
@@ -175,308 +550,2177 @@ public class Isometric {
      * Use this method when directly manipulating the items list returned by getCurrentItems().
      * This is a potentially 'dangerous' action, because you need to consider when you are
      * manipulating an item that is covered by another item.
+     *
+     * The depth sort edges of these items are recalculated on the next measure.
      */
     public void updateItems(List<Item> items, boolean cull, boolean boundsCheck) {
-        //this.itemsChanged = true;
-        //
         // only want to update these items instead of all items
         transformItems(items, cull, boundsCheck);
+        for (int i = 0, size = items.size(); i < size; i++) {
+            markDirty(items.get(i));
+        }
+        this.itemsChanged = true;
     }
 
     //allow user to update particular items
     public void transformItems(List<Item> items, boolean cull, boolean boundsCheck) {
 
+        if (items == getCurrentItems()) {
+            //every item gets a new slot, this compacts the projected geometry store
+            this.projectedSize = 0;
+            this.projectedGeneration++;
+            this.dirtyAll = true;
+        }
+
         int itemIndex = 0, itemSize = items.size();
         while (itemIndex < itemSize) {
             Item item = items.get(itemIndex);
 
-            item.transformedPoints = new Point[item.path.points.length];
-
-            if (!item.drawPath.isEmpty()) {
-                item.drawPath.rewind();//Todo: test if .reset is not needed and rewind is enough
-            }
-
-            Point point;
-            for (int i = 0, length = item.path.points.length; i < length; i++) {
-                point = item.path.points[i];
-                item.transformedPoints[i] = translateIsoToViewPoint(point);
-            }
-
-            //remove item if not in view
-            //the if conditions here are ordered carefully to save computation, fail fast approach
-            if ((cull && cullPath(item)) || (boundsCheck && !this.itemInDrawingBounds(item))) {
+            if (transformItem(item, cull, boundsCheck)) {
+                itemIndex++;
+            } else {
                 //the path is invisible. It does not need to be considered any more
                 items.remove(itemIndex);
                 itemSize--;
-                continue;
-            }
-            else
-            {
-                itemIndex++;
+                drop(item);
             }
+        }
+    }
 
-            item.drawPath.moveTo((float) item.transformedPoints[0].x, (float) item.transformedPoints[0].y);
-
-            for (int i = 1, length = item.transformedPoints.length; i < length; i++) {
-                item.drawPath.lineTo((float) item.transformedPoints[i].x, (float) item.transformedPoints[i].y);
+    private void transformDirtyItems(boolean cull, boolean boundsCheck) {
+        for (int i = 0, size = this.dirtyItems.size(); i < size; i++) {
+            Item item = this.dirtyItems.get(i);
+            if (item.dirty && !transformItem(item, cull, boundsCheck)) {
+                getCurrentItems().remove(item);
+                drop(item);
             }
-
-            item.drawPath.close();
         }
     }
 
-    public List<Item> getCurrentItems() {
-        return this.items;
+    /**
+     * Forget an item that measure removed from the list
+     */
+    private void drop(Item item) {
+        item.attached = false;
+        item.dirty = false;
+        detach(item);
+        this.changeGrid.remove(item);
+        releasePaint(item);
+        recordChange(item);
+        if (item.source != null) {
+            //a continued snapshot leaves the item out as long as it does not change
+            if (this.outItems == null) {
+                this.outItems = new ArrayList<>();
+            }
+            this.outItems.add(item);
+        }
     }
 
-    public void setCurrentItems(List<Item> items) {
-        this.items = items;
+    /**
+     * Project a single item, returns false if the item is culled or out of bounds
+     */
+    private boolean transformItem(Item item, boolean cull, boolean boundsCheck) {
+        //the pixels at the old and the new position change
+        addDirtyRegion(item);
+        int length = item.path.size();
+        int offset = allocateProjected(item, length);
+        double[] projected = this.projected;
+
+        //the android path is rebuilt from the store the next time the item is drawn on a canvas
+        item.drawPathValid = false;
+        invalidateLookup();
+
+        if (item.template != null) {
+            //the projection is linear, an instance is its template's projection moved by the projected offset
+            double shiftX = this.originX + item.offsetX * this.transformationIsoView[0][0] + item.offsetY * this.transformationIsoView[1][0];
+            double shiftY = this.originY - item.offsetX * this.transformationIsoView[0][1] - item.offsetY * this.transformationIsoView[1][1] - (item.offsetZ * this.scale);
+            double[] points = item.template.points;
+            int start = item.template.pointOffsets[item.templatePath];
+            for (int i = 0; i < length * 2; i += 2) {
+                projected[offset + i] = shiftX + points[start + i];
+                projected[offset + i + 1] = shiftY + points[start + i + 1];
+            }
+            item.convex = item.template.convex[item.templatePath];
+        } else {
+            //same projection as translateIsoToViewPoint, written straight into the store
+            Point[] points = item.path.points;
+            double[] coordinates = item.path instanceof PackedPath ? ((PackedPath) item.path).coordinates : null;
+            double x, y, z;
+            for (int i = 0; i < length; i++) {
+                if (coordinates != null) {
+                    x = coordinates[i * 3] + item.offsetX;
+                    y = coordinates[i * 3 + 1] + item.offsetY;
+                    z = coordinates[i * 3 + 2] + item.offsetZ;
+                } else {
+                    x = points[i].x + item.offsetX;
+                    y = points[i].y + item.offsetY;
+                    z = points[i].z + item.offsetZ;
+                }
+                projected[offset + i * 2] = this.originX + x * this.transformationIsoView[0][0] + y * this.transformationIsoView[1][0];
+                projected[offset + i * 2 + 1] = this.originY - x * this.transformationIsoView[0][1] - y * this.transformationIsoView[1][1] - (z * this.scale);
+            }
+            item.convex = item.path.isConvex();
+        }
+        item.measureBounds(projected);
+        item.measureArea(projected);
+        addDirtyRegion(item);
+        item.measurePlane();
+
+        //remove item if not in view
+        //the if conditions here are ordered carefully to save computation, fail fast approach
+        if ((cull && cullPath(item)) || (boundsCheck && !this.itemInDrawingBounds(item))) {
+            return false;
+        }
+        return true;
     }
 
-    private boolean cullPath(Item item) {
-        double a = item.transformedPoints[0].getX() * item.transformedPoints[1].getY();
-        double b = item.transformedPoints[1].getX() * item.transformedPoints[2].getY();
-        double c = item.transformedPoints[2].getX() * item.transformedPoints[0].getY();
-
-        double d = item.transformedPoints[1].getX() * item.transformedPoints[0].getY();
-        double e = item.transformedPoints[2].getX() * item.transformedPoints[1].getY();
-        double f = item.transformedPoints[0].getX() * item.transformedPoints[2].getY();
-
-        double z = a + b + c - d - e - f;
-        return z > 0;
+    /**
+     * Copy the items into a new Isometric that can be measured and drawn on another thread while this one
+     * keeps changing. The copies share the paths, colors and shapes of the items, getSource() of a copy
+     * returns the item it was copied from. This Isometric and its depth sort are not changed.
+     * The snapshot has to be measured before it is used.
+     */
+    public Isometric snapshot() {
+        return snapshot(null);
     }
 
-    private boolean itemInDrawingBounds(Item item) {
-        for (int i = 0, len = item.transformedPoints.length; i< len; i++)
-        {
-            //if any point is in bounds, the item is worth drawing
-            if (item.transformedPoints[i].getX() >= 0 &&
-                    item.transformedPoints[i].getX() <= this.currentWidth  &&
-                    item.transformedPoints[i].getY() >= 0 &&
-                    item.transformedPoints[i].getY() <= this.currentHeight)
-                return true;
+    /**
+     * Like snapshot(), but continues previous, the last snapshot taken of this Isometric. Only the items that
+     * changed since previous was taken are copied here; the other copies, their projection and their depth
+     * sort edges are taken over from previous by the measure of the new snapshot, which is the expensive part
+     * and can run on another thread. A measure at the same size then only projects and sorts the changed
+     * items, and the dirty region of the new snapshot only covers the changes since previous.
+     * Snapshots have to be measured in the order they were taken, one at a time; a snapshot that is never
+     * measured is skipped. Any other previous, or null, is ignored and all items are copied.
+     */
+    public Isometric snapshot(Isometric previous) {
+        Isometric snapshot = new Isometric();
+        snapshot.lightAngle = this.lightAngle;
+        snapshot.lightColor = this.lightColor;
+        snapshot.cycleBreaking = this.cycleBreaking;
+        snapshot.parallelSort = this.parallelSort;
+        snapshot.minFaceArea = this.minFaceArea;
+        snapshot.idBufferPicking = this.idBufferPicking;
+        snapshot.idBufferScale = this.idBufferScale;
+        snapshot.setCamera(this.cameraZoom, this.cameraPanX, this.cameraPanY);
+        snapshot.layoutRevision = this.layoutRevision;
+        snapshot.pendingLevelOfDetail = captureLevelOfDetail();
+
+        Map<Item, Item> changes;
+        if (previous != null && previous == this.lastSnapshot) {
+            snapshot.pendingBase = previous;
+            changes = new LinkedHashMap<>(this.snapshotChanges.size() * 2);
+            for (int i = 0, size = this.snapshotChanges.size(); i < size; i++) {
+                Item item = this.snapshotChanges.get(i);
+                changes.put(item, item.attached ? copyForSnapshot(item) : null);
+            }
+        } else {
+            List<Item> items = getCurrentItems();
+            changes = new LinkedHashMap<>(items.size() * 2);
+            for (int i = 0, size = items.size(); i < size; i++) {
+                Item item = items.get(i);
+                changes.put(item, copyForSnapshot(item));
+            }
         }
-        return false;
+        forgetSnapshotChanges();
+        snapshot.pendingChanges = changes;
+        this.lastSnapshot = snapshot;
+        return snapshot;
     }
 
-    private List<Item> sortPaths() {
-        ArrayList<Item> sortedItems = new ArrayList<>();
-        Point observer = new Point(-10, -10, 20);
-        int length = items.size();
-        List<List<Integer>> drawBefore = new ArrayList<>(length);
-        for (int i = 0; i < length; i++) {
-            drawBefore.add(i, new ArrayList<Integer>());
+    /**
+     * The curved handles whose vertices at the current zoom differ from their paths, null if there are none
+     */
+    private List<LevelOfDetail> captureLevelOfDetail() {
+        if (this.curveTolerance <= 0) {
+            return null;
         }
-        Item itemA;
-        Item itemB;
-        for (int i = 0; i < length; i++) {
-            itemA = items.get(i);
-            for (int j = 0; j < i; j++) {
-                itemB = items.get(j);
-                if (IntersectionUtils.hasIntersection(itemA.transformedPoints, itemB.transformedPoints)) {
-                    int cmpPath = itemA.path.closerThan(itemB.path, observer);
-                    if (cmpPath < 0) {
-                        drawBefore.get(i).add(j);
-                    } else if (cmpPath > 0) {
-                        drawBefore.get(j).add(i);
-                    }
-                }
+        List<LevelOfDetail> captured = null;
+        double pixelsPerUnit = this.scale * this.cameraZoom * CURVE_SCREEN_FACTOR;
+        for (int i = 0, size = this.curvedHandles.size(); i < size; i++) {
+            Handle handle = this.curvedHandles.get(i);
+            if (handle.removed || !handle.visible || handle.curve == null || handle.items.length == 0) {
+                continue;
             }
-        }
-        int drawThisTurn = 1;
-        Item currItem;
-        List<Integer> integers;
-        while (drawThisTurn == 1) {
-            drawThisTurn = 0;
-            for (int i = 0; i < length; i++) {
-                currItem = items.get(i);
-                integers = drawBefore.get(i);
-                if (currItem.drawn == 0) {
-                    int canDraw = 1;
-                    for (int j = 0, lengthIntegers = integers.size(); j < lengthIntegers; j++) {
-                        if (items.get(integers.get(j)).drawn == 0) {
-                            canDraw = 0;
-                            break;
-                        }
-                    }
-                    if (canDraw == 1) {
-                        Item item = Item.copyItem(currItem);
-                        sortedItems.add(item);
-                        currItem.drawn = 1;
-                        items.set(i, currItem);
-                        drawThisTurn = 1;
-                    }
+            int vertices = curveVertices(handle.curve, pixelsPerUnit);
+            if (vertices != handle.curveVertices) {
+                if (captured == null) {
+                    captured = new ArrayList<>();
                 }
+                captured.add(new LevelOfDetail(handle, vertices));
             }
         }
+        return captured;
+    }
 
-        for (int i = 0; i < length; i++) {
-            currItem = items.get(i);
-            if (currItem.drawn == 0) {
-                sortedItems.add(Item.copyItem(currItem));
-            }
+    /**
+     * Remember a changed item for the next snapshot
+     */
+    private void recordChange(Item item) {
+        if (this.lastSnapshot != null && !item.recorded) {
+            item.recorded = true;
+            this.snapshotChanges.add(item);
         }
-        return sortedItems;
     }
 
-    public void draw(Canvas canvas) {
-        for (Item item : items) {
-            /*this.ctx.globalAlpha = color.a;
-            this.ctx.fillStyle = this.ctx.strokeStyle = color.toHex();
-            this.ctx.stroke();
-            this.ctx.fill();
-            this.ctx.restore();*/
-            canvas.drawPath(item.drawPath, item.paint);
+    private void forgetSnapshotChanges() {
+        for (int i = 0, size = this.snapshotChanges.size(); i < size; i++) {
+            this.snapshotChanges.get(i).recorded = false;
         }
+        this.snapshotChanges.clear();
     }
 
-    //Todo: use android.grphics region object to check if point is inside region
-    //Todo: use path.op to check if the path intersects with another path
-    @Nullable
-    public Item findItemForPosition(Point position, boolean reverseSort, boolean touchPosition, double radius) {
+    /**
+     * Make the items of a snapshot from the copies taken by snapshot(...) and the snapshot it continues
+     */
+    private void buildSnapshot() {
+        Map<Item, Item> changes = this.pendingChanges;
+        Isometric base = this.pendingBase;
+        List<LevelOfDetail> levelOfDetail = this.pendingLevelOfDetail;
+        this.pendingChanges = null;
+        this.pendingBase = null;
+        this.pendingLevelOfDetail = null;
+        if (base != null && base.pendingChanges != null) {
+            //the snapshots in between were never measured, their changes are applied here
+            List<Map<Item, Item>> skipped = new ArrayList<>();
+            skipped.add(changes);
+            while (base != null && base.pendingChanges != null) {
+                skipped.add(base.pendingChanges);
+                base = base.pendingBase;
+            }
+            changes = new LinkedHashMap<>();
+            for (int i = skipped.size() - 1; i >= 0; i--) {
+                changes.putAll(skipped.get(i));
+            }
+        }
+        boolean continued = base != null && base.graphValid && !base.itemsChanged && base.layoutRevision == this.layoutRevision;
+        if (continued) {
+            int projectedLive = 0;
+            for (int i = 0, size = base.items.size(); i < size; i++) {
+                projectedLive += base.items.get(i).projectedLength * 2;
+            }
+            //starting over compacts the projected geometry store
+            continued = base.projectedSize <= projectedLive * 2;
+        }
 
-        //get iterator for the items list, and start either at the front or back
-        //The items are already sorted back-to-front, by iterating the items list backwards
-        //you check the items closer to the user first
-        ListIterator<Item> itr = getCurrentItems().listIterator(reverseSort ? getCurrentItems().size() : 0);
+        //sources whose copies are replaced by another tessellation of their curve
+        Map<Item, LevelOfDetail> tessellated = null;
+        if (levelOfDetail != null) {
+            this.levelOfDetail = new IdentityHashMap<>();
+            tessellated = new IdentityHashMap<>();
+            for (int i = 0, size = levelOfDetail.size(); i < size; i++) {
+                LevelOfDetail curve = levelOfDetail.get(i);
+                this.levelOfDetail.put(curve.handle, curve);
+                for (Item source : curve.sources) {
+                    tessellated.put(source, curve);
+                }
+            }
+        }
 
-        //Items are already sorted for depth sort so break should not be a problem here
-        //iterate through the list in one direction or the other
-        while (reverseSort ? itr.hasPrevious() : itr.hasNext()) {
-            Item item = reverseSort ? itr.previous() : itr.next();
-
-            if (item.transformedPoints == null) continue;
-            int initialSize = 4;
-            int itemSize = 0;
-            List<Point> items = new ArrayList<>(initialSize);
-            Point top = null,
-                    bottom = null,
-                    left = null,
-                    right = null;
-            for (Point point : item.transformedPoints) {
-                if (top == null) {
-                    top = new Point(point.x, point.y);
-                } else if (point.y > top.y) {
-                    top.y = point.y;
-                    top.x = point.x;
-                }
-
-                if (bottom == null) {
-                    bottom = new Point(point.x, point.y);
-                } else if (point.y < bottom.y) {
-                    bottom.y = point.y;
-                    bottom.x = point.x;
-                }
-
-                if (left == null) {
-                    left = new Point(point.x, point.y);
-                } else if (point.x < left.x) {
-                    left.x = point.x;
-                    left.y = point.y;
-                }
-
-                if (right == null) {
-                    right = new Point(point.x, point.y);
-                } else if (point.x > right.x) {
-                    right.x = point.x;
-                    right.y = point.y;
-                }
-            }
-
-            items.add(left);
-            items.add(top);
-            items.add(right);
-            items.add(bottom);
-            itemSize += 4;
-
-            //search for equal points that are above or below for left and right or left and right for bottom and top
-            for (Point point : item.transformedPoints) {
-                if (point.x == left.x) {
-                    if (point.y != left.y) {
-                        items.add(point);
-                        itemSize++;
+        //the copies of unchanged items by the copy of base they continue
+        Map<Item, Item> kept = new IdentityHashMap<>();
+        List<Item> changed = new ArrayList<>();
+        List<Item> out = new ArrayList<>();
+        if (base != null) {
+            if (base.levelOfDetail != null) {
+                for (LevelOfDetail previous : base.levelOfDetail.values()) {
+                    LevelOfDetail curve = this.levelOfDetail != null ? this.levelOfDetail.get(previous.handle) : null;
+                    if (curve != null && continued && curve.vertices == previous.vertices && curve.sources == previous.sources
+                            && !containsAny(changes, curve.sources)) {
+                        //same tessellation of an unchanged curve
+                        for (int i = 0, size = previous.copies.size(); i < size; i++) {
+                            curve.copies.add(continueCopy(previous.copies.get(i), kept, out));
+                        }
+                        continue;
                     }
-                }
-                if (point.x == right.x) {
-                    if (point.y != right.y) {
-                        items.add(point);
-                        itemSize++;
+                    for (int i = 0, size = previous.copies.size(); i < size; i++) {
+                        Item copy = previous.copies.get(i);
+                        if (copy.attached) {
+                            addDirtyRegion(copy);
+                        }
                     }
                 }
-                if (point.y == top.y) {
-                    if (point.y != top.y) {
-                        items.add(point);
-                        itemSize++;
+            }
+            for (int i = 0, size = base.items.size(); i < size; i++) {
+                Item copy = base.items.get(i);
+                if (!copy.tessellated) {
+                    continueSource(copy, false, changes, tessellated, kept, changed, out);
+                }
+            }
+            if (base.outItems != null) {
+                for (int i = 0, size = base.outItems.size(); i < size; i++) {
+                    Item copy = base.outItems.get(i);
+                    if (!copy.tessellated) {
+                        continueSource(copy, false, changes, tessellated, kept, changed, out);
                     }
                 }
-                if (point.y == bottom.y) {
-                    if (point.y != bottom.y) {
-                        items.add(point);
-                        itemSize++;
+            }
+            if (base.levelOfDetail != null) {
+                for (LevelOfDetail previous : base.levelOfDetail.values()) {
+                    for (int i = 0, size = previous.hidden.size(); i < size; i++) {
+                        continueSource(previous.hidden.get(i), true, changes, tessellated, kept, changed, out);
                     }
                 }
             }
-
-            //need to remove nulls if we never filled the initial capacity of the list
-            if (itemSize < initialSize)
-                items.removeAll(Collections.singleton(null));
-
-            //perform one method of touch position lookup
-            //it is faster to check the individual segments first (disabled by default).
-            // its possible the touch center is inside poly, but not close to
-            // an edge so finish by checking if center of circle is in poly
-            if ((touchPosition && IntersectionUtils.isPointCloseToPoly(items, position.x, position.y, radius)) || IntersectionUtils.isPointInPoly(items, position.x, position.y)) {
-                return item;
+        }
+        //new items
+        for (Map.Entry<Item, Item> entry : changes.entrySet()) {
+            Item copy = entry.getValue();
+            if (copy == null) {
+                continue;
+            }
+            LevelOfDetail curve = tessellated != null ? tessellated.get(entry.getKey()) : null;
+            if (curve != null) {
+                curve.hidden.add(copy);
+            } else {
+                changed.add(copy);
             }
         }
-        return null;
-    }
-
-    public static class Item {
-        Path path;
-        Color baseColor;
-        Paint paint;
-        Shape originalShape;
-        int drawn;
-        Point[] transformedPoints;
-        android.graphics.Path drawPath;
-
-        private Item(Item item) {
-            this.transformedPoints = item.transformedPoints;
-            this.drawPath = item.drawPath;
-            this.drawn = item.drawn;
-            this.paint = item.paint;
-            this.path = item.path;
-            this.baseColor = item.baseColor;
-            this.originalShape = item.originalShape;
+        if (levelOfDetail != null) {
+            LightingCache cache = Color.getLightingCache();
+            for (int i = 0, size = levelOfDetail.size(); i < size; i++) {
+                LevelOfDetail curve = levelOfDetail.get(i);
+                if (curve.copies.isEmpty()) {
+                    curve.tessellate(this.lightAngle, this.lightColor, cache, changed);
+                }
+            }
         }
 
-        private Item(Path path, Color baseColor, Shape originalShape) {
-            this.drawPath = new android.graphics.Path();
-            this.drawn = 0;
-            this.paint = new Paint(Paint.ANTI_ALIAS_FLAG);
-            this.paint.setStyle(Paint.Style.FILL_AND_STROKE);
-            this.paint.setStrokeWidth(1);
-            this.path = path;
-            this.baseColor = baseColor;
-            this.originalShape = originalShape;
-            this.paint.setColor(android.graphics.Color.argb((int) baseColor.a, (int) baseColor.r, (int) baseColor.g, (int) baseColor.b));
+        if (!continued || kept.size() < changed.size()) {
+            //projecting and sorting everything again is cheaper
+            this.items = new ArrayList<>(kept.size() + changed.size() + out.size());
+            this.items.addAll(kept.values());
+            this.items.addAll(changed);
+            this.items.addAll(out);
+            if (base != null) {
+                //the copies keep the slots of base, the next generation gives all of them new ones
+                this.projectedGeneration = base.projectedGeneration;
+            }
+            this.snapshotBase = base;
+            return;
         }
-
-        public static Item createItem(Path path, Color color, Shape originalShape){
-            return new Item(path, Color.transformColor(path, color), originalShape);
+        //the unchanged items in the order of base, with the edges between them
+        this.items = new ArrayList<>(kept.size() + changed.size());
+        for (int i = 0, size = base.items.size(); i < size; i++) {
+            Item previous = base.items.get(i);
+            Item copy = kept.get(previous);
+            if (copy == null) {
+                continue;
+            }
+            this.items.add(copy);
+            for (int e = 0, length = previous.drawBefore.size(); e < length; e++) {
+                Item before = kept.get(previous.drawBefore.get(e));
+                if (before != null) {
+                    copy.drawBefore.add(before);
+                }
+            }
+            for (int e = 0, length = previous.drawAfter.size(); e < length; e++) {
+                Item after = kept.get(previous.drawAfter.get(e));
+                if (after != null) {
+                    copy.drawAfter.add(after);
+                }
+            }
         }
-
-        public static Item copyItem(Item oldItem){
-            return new Item(oldItem);
+        for (int i = 0, size = changed.size(); i < size; i++) {
+            Item copy = changed.get(i);
+            this.items.add(copy);
+            markDirty(copy);
         }
-
-        public Path getPath() {
-            return path;
+        if (!out.isEmpty()) {
+            this.outItems = out;
         }
+        this.projected = Arrays.copyOf(base.projected, base.projectedSize);
+        this.projectedSize = base.projectedSize;
+        this.projectedGeneration = base.projectedGeneration;
+        this.currentWidth = base.currentWidth;
+        this.currentHeight = base.currentHeight;
+        this.measuredCull = base.measuredCull;
+        this.measuredBoundsCheck = base.measuredBoundsCheck;
+        this.graphValid = true;
+        //the camera is compared when the snapshot is drawn, see continueDrawing
+        this.dirtyAll = false;
+        this.snapshotBase = base;
+    }
 
-        public Shape getOriginalShape() {
-            return originalShape;
+    /**
+     * Continue a copy of base: the next copy is the change of its source if there is one, it is left out if the
+     * source was removed and it is kept with its projection otherwise. hidden copies were drawn with another
+     * tessellation in base. tessellated is null if no curve is tessellated again for this snapshot.
+     */
+    private void continueSource(Item previous, boolean hidden, Map<Item, Item> changes,
+                                Map<Item, LevelOfDetail> tessellated, Map<Item, Item> kept, List<Item> changed, List<Item> out) {
+        Item source = previous.source;
+        boolean change = changes.containsKey(source);
+        Item copy = change ? changes.remove(source) : null;
+        boolean listed = !hidden && previous.attached;
+        if (change && copy == null) {
+            //removed, the pixels change
+            if (listed) {
+                addDirtyRegion(previous);
+            }
+            return;
+        }
+        LevelOfDetail curve = tessellated != null ? tessellated.get(source) : null;
+        if (curve != null) {
+            if (listed) {
+                addDirtyRegion(previous);
+            }
+            curve.hidden.add(change ? copy : nextCopy(previous));
+        } else if (!change && !hidden) {
+            continueCopy(previous, kept, out);
+        } else {
+            if (listed) {
+                //reuses the slot and marks the old bounds dirty when it is projected again
+                copy.copyProjection(previous);
+            }
+            changed.add(change ? copy : nextCopy(previous));
+        }
+    }
+
+    /**
+     * An unchanged copy of a copy of base, listed if that one is listed and left out otherwise
+     */
+    private static Item continueCopy(Item previous, Map<Item, Item> kept, List<Item> out) {
+        Item copy = nextCopy(previous);
+        if (previous.attached) {
+            copy.attached = true;
+            //the UI thread drew previous before this snapshot was requested. Once this snapshot is drawn, previous
+            //is not drawn any more, so the android path and paint move over. A path that is not visible here yet
+            //is only built again
+            android.graphics.Path drawPath = previous.drawPath;
+            if (drawPath != null && previous.drawPathValid) {
+                copy.drawPath = drawPath;
+                copy.drawPathValid = true;
+            }
+            Paint paint = previous.paint;
+            if (paint != null && previous.paintColor == copy.color) {
+                copy.paint = paint;
+                copy.paintColor = copy.color;
+            }
+            kept.put(previous, copy);
+        } else {
+            out.add(copy);
+        }
+        return copy;
+    }
+
+    private static Item nextCopy(Item previous) {
+        Item copy = new Item(previous);
+        copy.source = previous.source;
+        copy.tessellated = previous.tessellated;
+        return copy;
+    }
+
+    private static boolean containsAny(Map<Item, Item> changes, Item[] sources) {
+        for (Item source : sources) {
+            if (changes.containsKey(source)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Item copyForSnapshot(Item item) {
+        Item copy = new Item(item.path, item.originalColor, item.originalShape, item.faceNormal);
+        copy.baseColor = item.baseColor;
+        copy.color = item.color;
+        copy.template = item.template;
+        copy.templatePath = item.templatePath;
+        copy.offsetX = item.offsetX;
+        copy.offsetY = item.offsetY;
+        copy.offsetZ = item.offsetZ;
+        copy.source = item.getSource();
+        copy.attached = true;
+        return copy;
+    }
+
+    /**
+     * Whether this snapshot continues frame
+     */
+    boolean continues(Isometric frame) {
+        return frame != null && this.snapshotBase == frame;
+    }
+
+    /**
+     * Called on the UI thread before this snapshot is drawn for the first time in place of frame: adds the dirty
+     * regions of the snapshots in between, which were measured but never drawn. Everything is dirty if this
+     * snapshot does not continue frame or the camera moved.
+     */
+    void continueDrawing(Isometric frame) {
+        Isometric base = this.snapshotBase;
+        this.snapshotBase = null;
+        while (base != null && base != frame) {
+            this.dirtyAll |= base.dirtyAll;
+            this.dirtyMinX = Math.min(this.dirtyMinX, base.dirtyMinX);
+            this.dirtyMinY = Math.min(this.dirtyMinY, base.dirtyMinY);
+            this.dirtyMaxX = Math.max(this.dirtyMaxX, base.dirtyMaxX);
+            this.dirtyMaxY = Math.max(this.dirtyMaxY, base.dirtyMaxY);
+            base = base.snapshotBase;
+        }
+        if (base == null || frame.cameraZoom != this.cameraZoom || frame.cameraPanX != this.cameraPanX
+                || frame.cameraPanY != this.cameraPanY) {
+            this.dirtyAll = true;
+        }
+    }
+
+    /**
+     * Changes with every change of the items or their colors
+     */
+    int getRevision() {
+        return this.revision;
+    }
+
+    /**
+     * Set how cycles in the depth order are resolved. Scenes without cycles are drawn in the same order
+     * with every policy, APPEND also keeps the order of older versions for scenes with cycles.
+     */
+    public void setCycleBreaking(CycleBreaking cycleBreaking) {
+        if (this.cycleBreaking != cycleBreaking) {
+            this.cycleBreaking = cycleBreaking;
+            this.graphValid = false;
+            this.layoutRevision++;
+            this.itemsChanged = true;
+            this.revision++;
+        }
+    }
+
+    public CycleBreaking getCycleBreaking() {
+        return this.cycleBreaking;
+    }
+
+    /**
+     * Run the pairwise overlap tests of large sorts on all cores. The resulting order is the same
+     * as with a sequential sort.
+     */
+    public void setParallelSort(boolean parallelSort) {
+        this.parallelSort = parallelSort;
+    }
+
+    public boolean isParallelSort() {
+        return this.parallelSort;
+    }
+
+    /**
+     * Adapt the drawing to its size on the screen. Curved shapes and paths like Cylinder and Circle are
+     * tessellated again on measure with as few vertices as keep every curve within curveTolerance pixels
+     * of the real curve, but never with more vertices than they were created with. A zoom that changes
+     * the vertices of a curve needs a new measure. Faces that cover less than minFaceArea square pixels
+     * at the current zoom are not drawn and not hit, they stay in the depth sort and come back when zoomed in.
+     *
+     * @param curveTolerance in pixels, 0 always uses the vertices the curves were created with
+     * @param minFaceArea    in square pixels, 0 keeps all faces
+     */
+    public void setLevelOfDetail(double curveTolerance, double minFaceArea) {
+        if (curveTolerance < 0 || minFaceArea < 0) {
+            throw new IllegalArgumentException("Tolerance and area can not be negative");
+        }
+        if (curveTolerance != this.curveTolerance) {
+            //the curves are tessellated again on the next measure, only their items are sorted again
+            this.curveTolerance = curveTolerance;
+            this.itemsChanged = true;
+            this.revision++;
+        }
+        if (minFaceArea != this.minFaceArea) {
+            this.minFaceArea = minFaceArea;
+            this.dirtyAll = true;
+            this.idBufferValid = false;
+            this.revision++;
+        }
+    }
+
+    public double getCurveTolerance() {
+        return this.curveTolerance;
+    }
+
+    public double getMinFaceArea() {
+        return this.minFaceArea;
+    }
+
+    /**
+     * Tessellate the curved handles whose vertex count changed
+     */
+    private void updateLevelOfDetail() {
+        if (this.curvedHandles.isEmpty()) {
+            return;
+        }
+        double pixelsPerUnit = this.scale * this.cameraZoom * CURVE_SCREEN_FACTOR;
+        int kept = 0;
+        for (int i = 0, size = this.curvedHandles.size(); i < size; i++) {
+            Handle handle = this.curvedHandles.get(i);
+            if (handle.removed || handle.curve == null) {
+                handle.curveListed = false;
+                continue;
+            }
+            this.curvedHandles.set(kept++, handle);
+            int vertices = curveVertices(handle.curve, pixelsPerUnit);
+            if (vertices != handle.curveVertices) {
+                handle.tessellate(vertices);
+            }
+        }
+        this.curvedHandles.subList(kept, this.curvedHandles.size()).clear();
+    }
+
+    /**
+     * Vertices for a chord error of at most curveTolerance pixels: r * (1 - cos(PI / n)) <= tolerance
+     */
+    private int curveVertices(Curved curve, double pixelsPerUnit) {
+        int max = curve.getMaxVertices();
+        if (this.curveTolerance <= 0) {
+            return max;
+        }
+        double radius = curve.getCurveRadius() * pixelsPerUnit;
+        int vertices = radius <= this.curveTolerance ? 3 : (int) Math.ceil(Math.PI / Math.acos(1 - this.curveTolerance / radius));
+        return Math.max(Math.min(vertices, max), Math.min(3, max));
+    }
+
+    /**
+     * Whether a curved handle needs other vertices at the new zoom than at the old one
+     */
+    private boolean isLevelOfDetailOutdated(double oldZoom, double newZoom) {
+        if (this.curveTolerance <= 0) {
+            return false;
+        }
+        double oldPixelsPerUnit = this.scale * oldZoom * CURVE_SCREEN_FACTOR;
+        double newPixelsPerUnit = this.scale * newZoom * CURVE_SCREEN_FACTOR;
+        for (int i = 0, size = this.curvedHandles.size(); i < size; i++) {
+            Handle handle = this.curvedHandles.get(i);
+            if (!handle.removed && handle.curve != null
+                    && curveVertices(handle.curve, oldPixelsPerUnit) != curveVertices(handle.curve, newPixelsPerUnit)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether the projected face covers less than minFaceArea square pixels at the current zoom.
+     * Such faces are skipped when drawing and hit testing.
+     */
+    private boolean isBelowMinFaceArea(Item item) {
+        return this.minFaceArea > 0 && item.area * this.cameraZoom * this.cameraZoom < this.minFaceArea;
+    }
+
+    /**
+     * Whether the items have to be measured again, e.g. after a zoom that changes the level of detail
+     */
+    boolean needsMeasure() {
+        return this.itemsChanged;
+    }
+
+    /**
+     * Change the direction and color of the light and relight all items
+     *
+     * @param lightAngle direction the light comes from, does not need to be normalized
+     */
+    public void setLight(Vector lightAngle, Color lightColor) {
+        this.lightAngle = new Vector(lightAngle.i, lightAngle.j, lightAngle.k).normalize();
+        this.lightColor = lightColor;
+        relight();
+    }
+
+    public Vector getLightAngle() {
+        return new Vector(this.lightAngle.i, this.lightAngle.j, this.lightAngle.k);
+    }
+
+    public Color getLightColor() {
+        return this.lightColor;
+    }
+
+    /**
+     * Recalculate the colors of all items from their cached face normals. Nothing is projected
+     * or sorted again. Large scenes are relit on all cores when the parallel sort is enabled.
+     * Items of hidden handles and culled items are relit when they are added again.
+     */
+    public void relight() {
+        List<Item> items = getCurrentItems();
+        this.dirtyAll = true;
+        this.revision++;
+        this.lightRevision++;
+        if (this.parallelSort && items.size() >= PARALLEL_THRESHOLD) {
+            getSortPool().invoke(new Relight(items, 0, items.size(), this.lightAngle, this.lightColor, this.lightRevision));
+        } else {
+            LightingCache cache = Color.getLightingCache();
+            for (int i = 0, size = items.size(); i < size; i++) {
+                items.get(i).light(this.lightAngle, this.lightColor, this.lightRevision, cache);
+            }
+        }
+        if (this.lastSnapshot != null) {
+            for (int i = 0, size = items.size(); i < size; i++) {
+                recordChange(items.get(i));
+            }
+        }
+    }
+
+    /**
+     * Number of depth order edges that had to be ignored by the last full sort to resolve cycles
+     */
+    public int getBrokenEdgeCount() {
+        return this.brokenEdges;
+    }
+
+    /**
+     * Returns the offset of the item's coordinates in the projected geometry store,
+     * reusing its slot from the last projection if the vertex count did not change
+     */
+    private int allocateProjected(Item item, int length) {
+        if (item.projectedGeneration == this.projectedGeneration && item.projectedOffset >= 0 && item.projectedLength == length) {
+            return item.projectedOffset;
+        }
+        int offset = this.projectedSize;
+        if (offset + length * 2 > this.projected.length) {
+            this.projected = Arrays.copyOf(this.projected, Math.max(offset + length * 2, this.projected.length * 2));
+        }
+        this.projectedSize = offset + length * 2;
+        item.projectedGeneration = this.projectedGeneration;
+        item.projectedOffset = offset;
+        item.projectedLength = length;
+        return offset;
+    }
+
+    /**
+     * Projected view coordinates of all items as x, y pairs. An item's points start at
+     * item.getProjectedOffset() and it has item.getProjectedLength() of them.
+     */
+    public double[] getProjectedCoordinates() {
+        return this.projected;
+    }
+
+    public List<Item> getCurrentItems() {
+        return this.items;
+    }
+
+    public void setCurrentItems(List<Item> items) {
+        this.items = items;
+        invalidateLookup();
+    }
+
+    private boolean cullPath(Item item) {
+        double[] projected = this.projected;
+        int offset = item.projectedOffset;
+        double x0 = projected[offset], y0 = projected[offset + 1];
+        double x1 = projected[offset + 2], y1 = projected[offset + 3];
+        double x2 = projected[offset + 4], y2 = projected[offset + 5];
+
+        double a = x0 * y1;
+        double b = x1 * y2;
+        double c = x2 * y0;
+
+        double d = x1 * y0;
+        double e = x2 * y1;
+        double f = x0 * y2;
+
+        double z = a + b + c - d - e - f;
+        return z > 0;
+    }
+
+    private boolean itemInDrawingBounds(Item item) {
+        double[] projected = this.projected;
+        for (int i = item.projectedOffset, end = i + item.projectedLength * 2; i < end; i += 2)
+        {
+            //if any point is in bounds, the item is worth drawing
+            if (projected[i] >= 0 &&
+                    projected[i] <= this.currentWidth  &&
+                    projected[i + 1] >= 0 &&
+                    projected[i + 1] <= this.currentHeight)
+                return true;
+        }
+        return false;
+    }
+
+    private List<Item> sortPaths() {
+        List<Item> items = this.items;
+        int length = items.size();
+        for (int i = 0; i < length; i++) {
+            items.get(i).sortIndex = i;
+        }
+
+        //only items with overlapping screen bounds can intersect, the grids find those pairs
+        List<Item> pending;
+        int[] pairCount = new int[1];
+        int[] pairs;
+        if (!this.graphValid) {
+            //no usable graph from the last frame, compare all pairs
+            for (int i = 0; i < length; i++) {
+                Item item = items.get(i);
+                item.drawBefore.clear();
+                item.drawAfter.clear();
+            }
+            this.sortGrid.build(items);
+            this.changeGrid.invalidate();
+            pairs = this.sortGrid.findOverlappingPairs(pairCount);
+            pending = null;
+        } else {
+            //only the changed items need new edges, everything else is kept from the last frame
+            pending = new ArrayList<>();
+            for (int i = 0, size = this.dirtyItems.size(); i < size; i++) {
+                Item item = this.dirtyItems.get(i);
+                if (item.dirty) {
+                    detach(item);
+                    pending.add(item);
+                }
+            }
+            if (!this.changeGrid.isBuilt()) {
+                this.changeGrid.build(items);
+            } else {
+                for (int d = 0, size = pending.size(); d < size; d++) {
+                    Item item = pending.get(d);
+                    this.changeGrid.remove(item);
+                    this.changeGrid.add(item);
+                }
+            }
+            pairs = new int[16];
+            List<Item> overlapping = new ArrayList<>();
+            for (int d = 0, size = pending.size(); d < size; d++) {
+                Item item = pending.get(d);
+                overlapping.clear();
+                this.changeGrid.findOverlapping(item, overlapping);
+                for (int k = 0, count = overlapping.size(); k < count; k++) {
+                    Item other = overlapping.get(k);
+                    //pairs of two changed items are compared once, from the later one
+                    if (other.dirty && other.sortIndex > item.sortIndex) {
+                        continue;
+                    }
+                    if (pairCount[0] * 2 + 2 > pairs.length) {
+                        pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                    }
+                    pairs[pairCount[0] * 2] = Math.max(item.sortIndex, other.sortIndex);
+                    pairs[pairCount[0] * 2 + 1] = Math.min(item.sortIndex, other.sortIndex);
+                    pairCount[0]++;
+                }
+            }
+        }
+
+        PairTest test = new PairTest(items, this.projected, pairs, 0, pairCount[0]);
+        if (this.parallelSort && pairCount[0] >= PARALLEL_THRESHOLD) {
+            test.blockSize = Math.max(PARALLEL_THRESHOLD / 4, pairCount[0] / (getSortPool().getParallelism() * 8));
+            getSortPool().invoke(test);
+        } else {
+            test.compute();
+        }
+        test.addEdges(items);
+
+        for (int i = 0, size = this.dirtyItems.size(); i < size; i++) {
+            this.dirtyItems.get(i).dirty = false;
+        }
+        this.dirtyItems.clear();
+        this.graphValid = true;
+
+        if (pending != null && pending.size() <= MAX_INCREMENTAL_INSERTS) {
+            List<Item> sortedItems = insertItems(items, pending);
+            if (sortedItems != null) {
+                return sortedItems;
+            }
+        }
+        return linearize(items);
+    }
+
+    /**
+     * Exact overlap test of two items whose screen bounds overlap. Returns a negative value if itemA
+     * has to be drawn after itemB, a positive value if it has to be drawn before and 0 if the order
+     * does not matter.
+     */
+    private static int compareItems(double[] projected, Item itemA, Item itemB, IntersectionUtils.Scratch scratch) {
+        //the separating axis test rejects separated convex pairs without the edge loops. Everything else goes through
+        //the general test, so faces that only touch are ordered the same whatever their convexity
+        if (itemA.convex && itemB.convex && IntersectionUtils.classifyConvex(projected, itemA.projectedOffset, itemA.projectedLength,
+                projected, itemB.projectedOffset, itemB.projectedLength) == IntersectionUtils.SEPARATED) {
+            return 0;
+        }
+        boolean intersects = IntersectionUtils.hasPolygonIntersection(projected, itemA.projectedOffset, itemA.projectedLength,
+                projected, itemB.projectedOffset, itemB.projectedLength, scratch);
+        if (intersects) {
+            //same as itemA.path.closerThan(itemB.path, OBSERVER) with the cached planes
+            return countCloserThan(itemA, itemB) - countCloserThan(itemB, itemA);
+        }
+        return 0;
+    }
+
+    /**
+     * Path.countCloserThan for the points of pointsItem against the cached plane of planeItem
+     */
+    private static int countCloserThan(Item planeItem, Item pointsItem) {
+        double normalX = planeItem.normalX, normalY = planeItem.normalY, normalZ = planeItem.normalZ;
+        double d = planeItem.planeOffset;
+        double observerPosition = planeItem.observerPosition;
+        int result = 0;
+        int result0 = 0;
+        Path path = pointsItem.path;
+        Point[] points = path.points;
+        double[] coordinates = path instanceof PackedPath ? ((PackedPath) path).coordinates : null;
+        double offsetX = pointsItem.offsetX, offsetY = pointsItem.offsetY, offsetZ = pointsItem.offsetZ;
+        int length = path.size();
+        for (int i = 0; i < length; i++) {
+            double pPosition;
+            if (coordinates != null) {
+                pPosition = normalX * (coordinates[i * 3] + offsetX) + normalY * (coordinates[i * 3 + 1] + offsetY) + normalZ * (coordinates[i * 3 + 2] + offsetZ) - d;
+            } else {
+                Point point = points[i];
+                pPosition = normalX * (point.x + offsetX) + normalY * (point.y + offsetY) + normalZ * (point.z + offsetZ) - d;
+            }
+            if (observerPosition * pPosition >= 0.000000001) { //careful with rounding approximations
+                result++;
+            }
+            if (observerPosition * pPosition >= -0.000000001 && observerPosition * pPosition < 0.000000001) {
+                result0++;
+            }
+        }
+
+        if (result == 0) {
+            return 0;
+        } else {
+            return ((result + result0) / length);
+        }
+    }
+
+    private static synchronized ForkJoinPool getSortPool() {
+        if (sortPool == null) {
+            sortPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+        return sortPool;
+    }
+
+    /**
+     * Runs the exact test on a range of candidate pairs (i, j with i > j) and records the resulting
+     * edges. Large ranges are split in half and run on the fork/join pool, every task keeps its own
+     * edge list and the lists are merged in pair order, so the graph is the same as a sequential run.
+     */
+    private static class PairTest extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Item> items;
+        private final double[] projected;
+        private final int[] pairs;
+        private final int from, to;
+
+        int blockSize = Integer.MAX_VALUE;
+
+        private PairTest left, right;
+
+        //edges as (index drawn first, index drawn last)
+        private int[] edges;
+        private int edgeCount;
+
+        PairTest(List<Item> items, double[] projected, int[] pairs, int from, int to) {
+            this.items = items;
+            this.projected = projected;
+            this.pairs = pairs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > this.blockSize) {
+                int middle = (this.from + this.to) >>> 1;
+                this.left = new PairTest(this.items, this.projected, this.pairs, this.from, middle);
+                this.right = new PairTest(this.items, this.projected, this.pairs, middle, this.to);
+                this.left.blockSize = this.right.blockSize = this.blockSize;
+                invokeAll(this.left, this.right);
+                return;
+            }
+            this.edges = new int[16];
+            IntersectionUtils.Scratch scratch = new IntersectionUtils.Scratch();
+            for (int p = this.from; p < this.to; p++) {
+                int i = this.pairs[p * 2];
+                int j = this.pairs[p * 2 + 1];
+                int cmpPath = compareItems(this.projected, this.items.get(i), this.items.get(j), scratch);
+                if (cmpPath < 0) {
+                    addEdge(j, i);
+                } else if (cmpPath > 0) {
+                    addEdge(i, j);
+                }
+            }
+        }
+
+        private void addEdge(int before, int after) {
+            if (this.edgeCount * 2 + 2 > this.edges.length) {
+                this.edges = Arrays.copyOf(this.edges, this.edges.length * 2);
+            }
+            this.edges[this.edgeCount * 2] = before;
+            this.edges[this.edgeCount * 2 + 1] = after;
+            this.edgeCount++;
+        }
+
+        void addEdges(List<Item> items) {
+            if (this.left != null) {
+                this.left.addEdges(items);
+                this.right.addEdges(items);
+                return;
+            }
+            for (int e = 0; e < this.edgeCount; e++) {
+                Item before = items.get(this.edges[e * 2]);
+                Item after = items.get(this.edges[e * 2 + 1]);
+                after.drawBefore.add(before);
+                before.drawAfter.add(after);
+            }
+        }
+    }
+
+    /**
+     * Order all items so that each item is drawn after the items in its drawBefore list.
+     *
+     * The graph is packed into int arrays (successors in CSR layout) and sorted with Kahn's algorithm.
+     * The ready items are kept in two min-index heaps that replay the passes of the old sort: an item
+     * that becomes ready behind the current position waits for the next pass, so acyclic scenes are
+     * drawn in the same order as before. If only cycles are left, the cycle breaking policy decides
+     * which edges are ignored.
+     */
+    private List<Item> linearize(List<Item> items) {
+        int length = items.size();
+        ArrayList<Item> sortedItems = new ArrayList<>(length);
+        this.brokenEdges = 0;
+
+        int edges = 0;
+        for (int i = 0; i < length; i++) {
+            Item item = items.get(i);
+            item.sortIndex = i;
+            edges += item.drawAfter.size();
+        }
+        if (this.inDegree.length < length) {
+            this.inDegree = new int[length];
+            this.successorStart = new int[length + 1];
+            this.queue = new int[length];
+            this.nextQueue = new int[length];
+        }
+        if (this.successors.length < edges) {
+            this.successors = new int[edges];
+        }
+        int[] inDegree = this.inDegree, successorStart = this.successorStart, successors = this.successors;
+        int[] queue = this.queue, nextQueue = this.nextQueue;
+
+        int edge = 0;
+        for (int i = 0; i < length; i++) {
+            inDegree[i] = 0;
+        }
+        for (int i = 0; i < length; i++) {
+            List<Item> after = items.get(i).drawAfter;
+            successorStart[i] = edge;
+            for (int j = 0, size = after.size(); j < size; j++) {
+                int successor = after.get(j).sortIndex;
+                successors[edge++] = successor;
+                inDegree[successor]++;
+            }
+        }
+        successorStart[length] = edge;
+
+        //the indices are added in ascending order, which already is a valid heap
+        int size = 0, nextSize = 0;
+        for (int i = 0; i < length; i++) {
+            if (inDegree[i] == 0) {
+                queue[size++] = i;
+            }
+        }
+
+        //index of the last drawn item in the current pass
+        int position = -1;
+        int next = 0;
+        while (sortedItems.size() < length) {
+            if (size == 0) {
+                if (nextSize > 0) {
+                    //start the next pass
+                    int[] swap = queue;
+                    queue = nextQueue;
+                    nextQueue = swap;
+                    size = nextSize;
+                    nextSize = 0;
+                    position = -1;
+                    continue;
+                }
+                //everything left is part of or behind a cycle
+                if (this.cycleBreaking == CycleBreaking.APPEND) {
+                    for (int i = 0; i < length; i++) {
+                        if (inDegree[i] > 0) {
+                            this.brokenEdges += inDegree[i];
+                            sortedItems.add(items.get(i));
+                        }
+                    }
+                    break;
+                }
+                int pick = -1;
+                for (; next < length; next++) {
+                    if (inDegree[next] > 0) {
+                        break;
+                    }
+                }
+                for (int i = next; i < length; i++) {
+                    if (inDegree[i] > 0 && (pick < 0 || inDegree[i] < inDegree[pick])) {
+                        pick = i;
+                    }
+                }
+                this.brokenEdges += inDegree[pick];
+                inDegree[pick] = 0;
+                queue[size++] = pick;
+                position = -1;
+            }
+            int current = queue[0];
+            size = popHeap(queue, size);
+            position = current;
+            //drawn items are marked with -1 so the cycle breaking scan skips them
+            inDegree[current] = -1;
+            sortedItems.add(items.get(current));
+            for (int e = successorStart[current], end = successorStart[current + 1]; e < end; e++) {
+                int successor = successors[e];
+                if (inDegree[successor] > 0 && --inDegree[successor] == 0) {
+                    if (successor > position) {
+                        size = pushHeap(queue, size, successor);
+                    } else {
+                        nextSize = pushHeap(nextQueue, nextSize, successor);
+                    }
+                }
+            }
+        }
+        return sortedItems;
+    }
+
+    /**
+     * Add a value to a binary min-heap of the given size, returns the new size
+     */
+    private static int pushHeap(int[] heap, int size, int value) {
+        int i = size;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= value) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+        return size + 1;
+    }
+
+    /**
+     * Remove the smallest value of a binary min-heap of the given size, returns the new size
+     */
+    private static int popHeap(int[] heap, int size) {
+        int value = heap[--size];
+        int i = 0;
+        while (true) {
+            int child = i * 2 + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (value <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = value;
+        return size;
+    }
+
+    /**
+     * Keep the order of the last frame and move each changed item to a position between
+     * the items it has to be drawn after and the items it has to be drawn before.
+     * Returns null if an item has no such position, the whole list needs to be linearized then.
+     */
+    private static List<Item> insertItems(List<Item> items, List<Item> pending) {
+        //positions are numbered with room for all pending items after every kept item: kept item i is at
+        //(i + 1) * INSERT_GAP, and an item inserted after it at the next numbers of its gap. An insert only
+        //renumbers the items of its own gap, the list is put together once at the end
+        if (items.size() >= Integer.MAX_VALUE / INSERT_GAP - 1) {
+            return null;
+        }
+        ArrayList<Item> keptItems = new ArrayList<>(items.size());
+        for (int i = 0, size = pending.size(); i < size; i++) {
+            pending.get(i).sortIndex = -1;
+        }
+        for (int i = 0, size = items.size(); i < size; i++) {
+            Item item = items.get(i);
+            if (item.sortIndex >= 0) {
+                item.sortIndex = (keptItems.size() + 1) * INSERT_GAP;
+                keptItems.add(item);
+            }
+        }
+        //the inserted items after each kept item in order, the gap before the first kept item is -1
+        Map<Integer, List<Item>> gaps = new HashMap<>();
+        for (int p = 0, size = pending.size(); p < size; p++) {
+            Item item = pending.get(p);
+            int low = -1, high = Integer.MAX_VALUE;
+            for (int i = 0, length = item.drawBefore.size(); i < length; i++) {
+                low = Math.max(low, item.drawBefore.get(i).sortIndex);
+            }
+            for (int i = 0, length = item.drawAfter.size(); i < length; i++) {
+                int index = item.drawAfter.get(i).sortIndex;
+                if (index >= 0) {
+                    high = Math.min(high, index);
+                }
+            }
+            if (low >= high) {
+                return null;
+            }
+            //right after the item at low
+            int gap = low < 0 ? -1 : low / INSERT_GAP - 1;
+            int position = low < 0 ? 0 : low % INSERT_GAP;
+            List<Item> inserted = gaps.get(gap);
+            if (inserted == null) {
+                inserted = new ArrayList<>();
+                gaps.put(gap, inserted);
+            }
+            inserted.add(position, item);
+            for (int i = position, length = inserted.size(); i < length; i++) {
+                inserted.get(i).sortIndex = (gap + 1) * INSERT_GAP + i + 1;
+            }
+        }
+        int[] filled = new int[gaps.size()];
+        int count = 0;
+        for (Integer gap : gaps.keySet()) {
+            filled[count++] = gap;
+        }
+        Arrays.sort(filled);
+        ArrayList<Item> sortedItems = new ArrayList<>(keptItems.size() + pending.size());
+        int next = 0;
+        for (int gap : filled) {
+            sortedItems.addAll(keptItems.subList(next, gap + 1));
+            sortedItems.addAll(gaps.get(gap));
+            next = gap + 1;
+        }
+        sortedItems.addAll(keptItems.subList(next, keptItems.size()));
+        return sortedItems;
+    }
+
+    private void markDirty(Item item) {
+        if (!item.dirty) {
+            item.dirty = true;
+            this.dirtyItems.add(item);
+            if (this.dirtyItems.size() > this.items.size() * 2 + 64) {
+                //an Isometric that is only snapshotted is never measured, drop the items that were removed since
+                compactDirtyItems();
+            }
+        }
+        recordChange(item);
+        this.revision++;
+    }
+
+    private void compactDirtyItems() {
+        int kept = 0;
+        for (int i = 0, size = this.dirtyItems.size(); i < size; i++) {
+            Item item = this.dirtyItems.get(i);
+            if (item.dirty) {
+                this.dirtyItems.set(kept++, item);
+            }
+        }
+        this.dirtyItems.subList(kept, this.dirtyItems.size()).clear();
+    }
+
+    /**
+     * Remove all depth sort edges of an item
+     */
+    private static void detach(Item item) {
+        for (int i = 0, length = item.drawBefore.size(); i < length; i++) {
+            item.drawBefore.get(i).drawAfter.remove(item);
+        }
+        for (int i = 0, length = item.drawAfter.size(); i < length; i++) {
+            item.drawAfter.get(i).drawBefore.remove(item);
+        }
+        item.drawBefore.clear();
+        item.drawAfter.clear();
+    }
+
+    public void draw(Canvas canvas) {
+        boolean camera = hasCamera();
+        if (camera) {
+            canvas.save();
+            canvas.translate((float) this.cameraPanX, (float) this.cameraPanY);
+            canvas.scale((float) this.cameraZoom, (float) this.cameraZoom);
+        }
+        for (Item item : items) {
+            /*this.ctx.globalAlpha = color.a;
+            this.ctx.fillStyle = this.ctx.strokeStyle = color.toHex();
+            this.ctx.stroke();
+            this.ctx.fill();
+            this.ctx.restore();*/
+            if (isBelowMinFaceArea(item)) continue;
+            item.prepareCanvasDrawing(this.projected, this.paintPool);
+            canvas.drawPath(item.drawPath, item.paint);
+        }
+        if (camera) {
+            canvas.restore();
+        }
+    }
+
+    /**
+     * Draw only the items that overlap a rectangle of the view, e.g. one tile of a cached drawing.
+     * The canvas is not clipped to the rectangle.
+     */
+    public void draw(Canvas canvas, double left, double top, double right, double bottom) {
+        List<Item> currentItems = getCurrentItems();
+        ensureHitGrid(currentItems);
+        //rectangle in scene coordinates, grown by the part of the stroke outside of the bounds
+        double padding = DIRTY_PADDING / this.cameraZoom;
+        int[] candidates = this.hitCandidates = this.hitGrid.findOverlapping(
+                (left - this.cameraPanX) / this.cameraZoom - padding, (top - this.cameraPanY) / this.cameraZoom - padding,
+                (right - this.cameraPanX) / this.cameraZoom + padding, (bottom - this.cameraPanY) / this.cameraZoom + padding,
+                this.hitCandidates, this.hitCount);
+        int candidateCount = this.hitCount[0];
+        Arrays.sort(candidates, 0, candidateCount);
+
+        boolean camera = hasCamera();
+        if (camera) {
+            canvas.save();
+            canvas.translate((float) this.cameraPanX, (float) this.cameraPanY);
+            canvas.scale((float) this.cameraZoom, (float) this.cameraZoom);
+        }
+        for (int c = 0; c < candidateCount; c++) {
+            Item item = currentItems.get(candidates[c]);
+            if (item.projectedOffset < 0 || isBelowMinFaceArea(item)) continue;
+            item.prepareCanvasDrawing(this.projected, this.paintPool);
+            canvas.drawPath(item.drawPath, item.paint);
+        }
+        if (camera) {
+            canvas.restore();
+        }
+    }
+
+    /**
+     * Draw the items into a render target. Unlike draw(Canvas) this does not touch android.graphics,
+     * so the whole pipeline can run on a plain JVM.
+     */
+    public void draw(RenderTarget target) {
+        boolean camera = hasCamera();
+        double[] projected = this.projected;
+        for (Item item : items) {
+            if (item.projectedOffset < 0 || isBelowMinFaceArea(item)) continue;
+            int offset = item.projectedOffset, length = item.projectedLength;
+            if (camera) {
+                if (this.cameraPoints.length < length * 2) {
+                    this.cameraPoints = new double[length * 2];
+                }
+                for (int i = 0; i < length * 2; i += 2) {
+                    this.cameraPoints[i] = projected[offset + i] * this.cameraZoom + this.cameraPanX;
+                    this.cameraPoints[i + 1] = projected[offset + i + 1] * this.cameraZoom + this.cameraPanY;
+                }
+                target.fillPolygon(this.cameraPoints, 0, length, item.color);
+            } else {
+                target.fillPolygon(projected, offset, length, item.color);
+            }
+        }
+    }
+
+    /**
+     * The camera is a 2D zoom and pan applied on top of the projection when drawing.
+     * A view point is scene point * zoom + pan, where scene points are the coordinates
+     * returned by translateIsoToViewPoint. Changing the camera never re-projects or re-sorts,
+     * except for curves whose level of detail changes with the zoom, see setLevelOfDetail.
+     */
+    public void setCamera(double zoom, double panX, double panY) {
+        if (!(zoom > 0)) {
+            throw new IllegalArgumentException("Zoom has to be positive");
+        }
+        if (zoom != this.cameraZoom || panX != this.cameraPanX || panY != this.cameraPanY) {
+            this.dirtyAll = true;
+        }
+        if (zoom != this.cameraZoom) {
+            //the faces below the minimum area are picked at the new zoom
+            this.idBufferValid = false;
+            if (isLevelOfDetailOutdated(this.cameraZoom, zoom)) {
+                this.itemsChanged = true;
+                this.revision++;
+            }
+        }
+        this.cameraZoom = zoom;
+        this.cameraPanX = panX;
+        this.cameraPanY = panY;
+    }
+
+    public void resetCamera() {
+        setCamera(1, 0, 0);
+    }
+
+    /**
+     * Move the camera by dx and dy view pixels
+     */
+    public void pan(double dx, double dy) {
+        setCamera(this.cameraZoom, this.cameraPanX + dx, this.cameraPanY + dy);
+    }
+
+    /**
+     * Zoom by a factor while keeping the view point (focusX, focusY) in place, e.g. the center of a pinch
+     */
+    public void zoom(double factor, double focusX, double focusY) {
+        setCamera(this.cameraZoom * factor,
+                focusX - (focusX - this.cameraPanX) * factor,
+                focusY - (focusY - this.cameraPanY) * factor);
+    }
+
+    /**
+     * Zoom and pan so all measured items fit into the current view size, with padding in view pixels.
+     * Returns false if there is nothing measured to fit yet.
+     */
+    public boolean fitToScene(double padding) {
+        List<Item> items = getCurrentItems();
+        if (items.isEmpty() || this.currentWidth <= 0 || this.currentHeight <= 0) {
+            return false;
+        }
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0, size = items.size(); i < size; i++) {
+            Item item = items.get(i);
+            if (item.projectedOffset < 0) continue;
+            minX = Math.min(minX, item.minX);
+            minY = Math.min(minY, item.minY);
+            maxX = Math.max(maxX, item.maxX);
+            maxY = Math.max(maxY, item.maxY);
+        }
+        if (minX > maxX) {
+            return false;
+        }
+        double width = Math.max(this.currentWidth - 2 * padding, 1);
+        double height = Math.max(this.currentHeight - 2 * padding, 1);
+        double zoom = Math.min(width / Math.max(maxX - minX, 1), height / Math.max(maxY - minY, 1));
+        setCamera(zoom,
+                this.currentWidth / 2.0 - (minX + maxX) / 2.0 * zoom,
+                this.currentHeight / 2.0 - (minY + maxY) / 2.0 * zoom);
+        return true;
+    }
+
+    public double getCameraZoom() {
+        return this.cameraZoom;
+    }
+
+    public double getCameraPanX() {
+        return this.cameraPanX;
+    }
+
+    public double getCameraPanY() {
+        return this.cameraPanY;
+    }
+
+    private boolean hasCamera() {
+        return this.cameraZoom != 1 || this.cameraPanX != 0 || this.cameraPanY != 0;
+    }
+
+    /**
+     * Resolve front-most lookups (reverseSort) by reading an offscreen buffer of item indices instead of
+     * testing polygons. The buffer always matches what is drawn, but costs a rasterization of the scene
+     * after every change of the sorted items.
+     *
+     * @param scale resolution of the buffer relative to the view, e.g. 0.5 for a quarter of the pixels
+     */
+    public void setIdBufferPicking(boolean idBufferPicking, double scale) {
+        if (!(scale > 0)) {
+            throw new IllegalArgumentException("Scale has to be positive");
+        }
+        this.idBufferPicking = idBufferPicking;
+        this.idBufferScale = scale;
+        this.idBuffer = null;
+        this.idBufferValid = false;
+    }
+
+    public boolean isIdBufferPicking() {
+        return this.idBufferPicking;
+    }
+
+    private void ensureHitGrid(List<Item> currentItems) {
+        if (!this.hitGridValid) {
+            this.hitGrid.build(currentItems);
+            this.hitGridValid = true;
+        }
+    }
+
+    private void addDirtyRegion(Item item) {
+        if (item.projectedOffset < 0) {
+            return;
+        }
+        this.dirtyMinX = Math.min(this.dirtyMinX, item.minX);
+        this.dirtyMinY = Math.min(this.dirtyMinY, item.minY);
+        this.dirtyMaxX = Math.max(this.dirtyMaxX, item.maxX);
+        this.dirtyMaxY = Math.max(this.dirtyMaxY, item.maxY);
+    }
+
+    /**
+     * Get the region of the view whose pixels changed since the last call, as left, top, right, bottom
+     * in view coordinates. Everything changed if the region is infinite.
+     *
+     * @return false if nothing changed
+     */
+    public boolean takeDirtyRegion(double[] bounds) {
+        boolean dirty = this.dirtyAll || this.dirtyMinX <= this.dirtyMaxX;
+        if (this.dirtyAll) {
+            bounds[0] = bounds[1] = Double.NEGATIVE_INFINITY;
+            bounds[2] = bounds[3] = Double.POSITIVE_INFINITY;
+        } else if (dirty) {
+            bounds[0] = this.dirtyMinX * this.cameraZoom + this.cameraPanX - DIRTY_PADDING;
+            bounds[1] = this.dirtyMinY * this.cameraZoom + this.cameraPanY - DIRTY_PADDING;
+            bounds[2] = this.dirtyMaxX * this.cameraZoom + this.cameraPanX + DIRTY_PADDING;
+            bounds[3] = this.dirtyMaxY * this.cameraZoom + this.cameraPanY + DIRTY_PADDING;
+        }
+        this.dirtyAll = false;
+        this.dirtyMinX = this.dirtyMinY = Double.POSITIVE_INFINITY;
+        this.dirtyMaxX = this.dirtyMaxY = Double.NEGATIVE_INFINITY;
+        return dirty;
+    }
+
+    private void releasePaint(Item item) {
+        if (item.paint != null) {
+            this.paintPool.release(item.paintColor);
+            item.paint = null;
+        }
+    }
+
+    private void invalidateLookup() {
+        this.hitGridValid = false;
+        this.idBufferValid = false;
+        this.revision++;
+    }
+
+    /**
+     * Read the item index + 1 at a scene position from the id buffer, 0 if no item is drawn there
+     * and -1 if the position is outside of the buffer
+     */
+    private int pickIdBuffer(double x, double y) {
+        int width = (int) Math.ceil(this.currentWidth * this.idBufferScale);
+        int height = (int) Math.ceil(this.currentHeight * this.idBufferScale);
+        if (width <= 0 || height <= 0) {
+            return -1;
+        }
+        if (this.idBuffer == null || this.idBuffer.getWidth() != width || this.idBuffer.getHeight() != height) {
+            this.idBuffer = new RasterRenderTarget(width, height);
+            this.idBuffer.setBlend(false);
+            this.idBufferValid = false;
+        }
+        if (!this.idBufferValid) {
+            //draw the items back-to-front with their index, front-most items overwrite the ones behind them
+            List<Item> items = getCurrentItems();
+            double scale = this.idBufferScale;
+            this.idBuffer.clear(0);
+            for (int i = 0, size = items.size(); i < size; i++) {
+                Item item = items.get(i);
+                if (item.projectedOffset < 0 || isBelowMinFaceArea(item)) continue;
+                int offset = item.projectedOffset, length = item.projectedLength;
+                if (this.idBufferPoints.length < length * 2) {
+                    this.idBufferPoints = new double[length * 2];
+                }
+                for (int j = 0; j < length * 2; j++) {
+                    this.idBufferPoints[j] = this.projected[offset + j] * scale;
+                }
+                this.idBuffer.fillPolygon(this.idBufferPoints, 0, length, i + 1);
+            }
+            this.idBufferValid = true;
+        }
+        int pixelX = (int) Math.floor(x * this.idBufferScale), pixelY = (int) Math.floor(y * this.idBufferScale);
+        if (pixelX < 0 || pixelY < 0 || pixelX >= width || pixelY >= height) {
+            return -1;
+        }
+        return this.idBuffer.getPixel(pixelX, pixelY);
+    }
+
+    /**
+     * Convert a view point, e.g. a touch position, into scene coordinates by undoing the camera
+     */
+    public Point translateViewToScenePoint(Point point) {
+        return new Point((point.x - this.cameraPanX) / this.cameraZoom, (point.y - this.cameraPanY) / this.cameraZoom);
+    }
+
+    //Todo: use android.grphics region object to check if point is inside region
+    //Todo: use path.op to check if the path intersects with another path
+    //returns null if no item is at the position
+    public Item findItemForPosition(Point position, boolean reverseSort, boolean touchPosition, double radius) {
+
+        //the position is in view coordinates, the items are not
+        if (hasCamera()) {
+            position = translateViewToScenePoint(position);
+            radius /= this.cameraZoom;
+        }
+
+        List<Item> currentItems = getCurrentItems();
+
+        //the id buffer knows the front-most item at every pixel. Only positions outside of it
+        //and touches that did not hit an item directly but may be close to one need the polygon tests
+        if (this.idBufferPicking && reverseSort) {
+            int id = pickIdBuffer(position.x, position.y);
+            if (id > 0) {
+                return currentItems.get(id - 1);
+            }
+            if (id == 0 && !touchPosition) {
+                return null;
+            }
+        }
+
+        ensureHitGrid(currentItems);
+
+        //only the items whose bounds are under the position can be hit
+        int[] candidates = this.hitCandidates = this.hitGrid.findContaining(position.x, position.y, touchPosition ? radius : 0, this.hitCandidates, this.hitCount);
+        int candidateCount = this.hitCount[0];
+        Arrays.sort(candidates, 0, candidateCount);
+
+        //The items are already sorted back-to-front, by iterating the candidates backwards
+        //you check the items closer to the user first
+        //Items are already sorted for depth sort so break should not be a problem here
+        for (int c = 0; c < candidateCount; c++) {
+            Item item = currentItems.get(candidates[reverseSort ? candidateCount - 1 - c : c]);
+
+            if (item.projectedOffset < 0 || isBelowMinFaceArea(item)) continue;
+
+            //the hit polygon is the projected outline of the item in the geometry store.
+            //perform one method of touch position lookup
+            //it is faster to check the individual segments first (disabled by default).
+            // its possible the touch center is inside poly, but not close to
+            // an edge so finish by checking if center of circle is in poly
+            if ((touchPosition && IntersectionUtils.isPointCloseToPoly(this.projected, item.projectedOffset, item.projectedLength, position.x, position.y, radius))
+                    || IntersectionUtils.isPointInPoly(this.projected, item.projectedOffset, item.projectedLength, position.x, position.y)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Relights a range of items. Every block uses its own cache, so the tasks never wait for each other.
+     */
+    private static class Relight extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Item> items;
+        private final int from, to;
+        private final Vector lightAngle;
+        private final Color lightColor;
+        private final int lightRevision;
+
+        Relight(List<Item> items, int from, int to, Vector lightAngle, Color lightColor, int lightRevision) {
+            this.items = items;
+            this.from = from;
+            this.to = to;
+            this.lightAngle = lightAngle;
+            this.lightColor = lightColor;
+            this.lightRevision = lightRevision;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > RELIGHT_BLOCK_SIZE) {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new Relight(this.items, this.from, middle, this.lightAngle, this.lightColor, this.lightRevision),
+                        new Relight(this.items, middle, this.to, this.lightAngle, this.lightColor, this.lightRevision));
+                return;
+            }
+            //the cache of the worker thread
+            LightingCache cache = Color.getLightingCache();
+            for (int i = this.from; i < this.to; i++) {
+                this.items.get(i).light(this.lightAngle, this.lightColor, this.lightRevision, cache);
+            }
+        }
+    }
+
+    /**
+     * Another tessellation of a curved handle in a snapshot, for the level of detail at the snapshot's zoom.
+     * Captured from the handle when the snapshot is taken, the copies are made when it is measured.
+     */
+    private static final class LevelOfDetail {
+        final Handle handle;
+        final Curved curve;
+        final int vertices;
+        final Item[] sources;
+        final Color color;
+        final Shape shape;
+        final double offsetX, offsetY, offsetZ;
+        //copies of the tessellated paths, and the copies of the sources that are drawn in their place
+        final List<Item> copies = new ArrayList<>();
+        final List<Item> hidden = new ArrayList<>();
+
+        LevelOfDetail(Handle handle, int vertices) {
+            this.handle = handle;
+            this.curve = handle.curve;
+            this.vertices = vertices;
+            this.sources = handle.items;
+            this.color = handle.color;
+            this.shape = handle.shape;
+            this.offsetX = handle.items[0].offsetX;
+            this.offsetY = handle.items[0].offsetY;
+            this.offsetZ = handle.items[0].offsetZ;
+        }
+
+        /**
+         * Make the copies of the paths with the snapshot's vertices, like Handle.tessellate
+         */
+        void tessellate(Vector lightAngle, Color lightColor, LightingCache cache, List<Item> changed) {
+            Path[] paths = new Shape(this.curve.tessellate(this.vertices)).orderedPaths();
+            for (int i = 0; i < paths.length; i++) {
+                Item copy = new Item(paths[i], this.color, this.shape);
+                copy.light(lightAngle, lightColor, 0, cache);
+                copy.offsetX = this.offsetX;
+                copy.offsetY = this.offsetY;
+                copy.offsetZ = this.offsetZ;
+                //a hit on the copy reports an item of the handle
+                copy.source = this.sources[Math.min(i, this.sources.length - 1)];
+                copy.tessellated = true;
+                copy.attached = true;
+                this.copies.add(copy);
+                changed.add(copy);
+            }
+        }
+    }
+
+    /**
+     * Shared geometry of the items added with addInstances
+     */
+    private static final class Template {
+        final Vector[] faceNormals;
+        final boolean[] convex;
+        //projected points of all paths relative to the origin, path p starts at pointOffsets[p]
+        double[] points;
+        final int[] pointOffsets;
+
+        Template(int pathCount) {
+            this.faceNormals = new Vector[pathCount];
+            this.convex = new boolean[pathCount];
+            this.pointOffsets = new int[pathCount];
+        }
+    }
+
+    /**
+     * Stable reference to the items added by one add call. The items can be moved, recolored,
+     * hidden or given new geometry in place, only they are projected and sorted again on the next measure.
+     */
+    public static class Handle {
+
+        private final Isometric isometric;
+        private final int id;
+        private Item[] items;
+        private Color color;
+        private Shape shape;
+        private boolean visible = true;
+        boolean removed;
+        //parametric shape for the level of detail and the vertices per curve of the current paths
+        Curved curve;
+        int curveVertices;
+        boolean curveListed;
+
+        Handle(Isometric isometric, Item[] items, Color color, Shape shape) {
+            this.isometric = isometric;
+            this.id = isometric.nextHandleId++;
+            this.items = items;
+            this.color = color;
+            this.shape = shape;
+            for (Item item : items) {
+                item.handle = this;
+            }
+        }
+
+        /**
+         * Unique for all handles of an Isometric
+         */
+        public int getId() {
+            return this.id;
+        }
+
+        public List<Item> getItems() {
+            return Collections.unmodifiableList(Arrays.asList(this.items));
+        }
+
+        public boolean isVisible() {
+            return this.visible;
+        }
+
+        public boolean isRemoved() {
+            return this.removed;
+        }
+
+        /**
+         * Replace the geometry with the paths of a shape, existing items are reused
+         */
+        public void setShape(Shape shape) {
+            this.shape = shape;
+            setPaths(shape.orderedPaths());
+            if (shape instanceof Curved) {
+                this.isometric.addCurved(this, (Curved) shape);
+            }
+        }
+
+        /**
+         * Replace the geometry with new paths, existing items and their drawing objects are reused.
+         * Any translation of the handle is dropped.
+         */
+        public void setPaths(Path[] paths) {
+            if (this.color == null) {
+                throw new IllegalStateException("The handle has a color per path, use setPaths(Path[], Color[])");
+            }
+            setPaths(paths, null);
+        }
+
+        /**
+         * Replace the geometry with new paths with their own colors, like setPaths(Path[])
+         *
+         * @param colors color of every path, or null to give all of them the color of the handle
+         */
+        public void setPaths(Path[] paths, Color[] colors) {
+            checkRemoved();
+            if (colors != null) {
+                if (colors.length != paths.length) {
+                    throw new IllegalArgumentException("Every path needs a color");
+                }
+                this.color = null;
+            }
+            this.curve = null;
+            Item[] items = new Item[paths.length];
+            for (int i = 0; i < paths.length; i++) {
+                Item item;
+                if (i < this.items.length) {
+                    item = this.items[i];
+                    item.path = paths[i];
+                    item.faceNormal = Color.faceNormal(paths[i]);
+                    item.template = null;
+                    item.templatePath = 0;
+                    item.offsetX = item.offsetY = item.offsetZ = 0;
+                } else {
+                    item = new Item(paths[i], this.color, this.shape);
+                    item.handle = this;
+                }
+                item.originalColor = colors != null ? colors[i] : this.color;
+                item.originalShape = this.shape;
+                this.isometric.light(item);
+                items[i] = item;
+                if (this.visible) {
+                    this.isometric.refresh(item);
+                }
+            }
+            if (this.items.length > paths.length) {
+                this.isometric.removeItems(Arrays.asList(this.items).subList(paths.length, this.items.length));
+            }
+            this.items = items;
+        }
+
+        /**
+         * Replace the paths with a new tessellation of the curve, keeping the translation
+         */
+        void tessellate(int vertices) {
+            Curved curve = this.curve;
+            double offsetX = 0, offsetY = 0, offsetZ = 0;
+            if (this.items.length > 0) {
+                offsetX = this.items[0].offsetX;
+                offsetY = this.items[0].offsetY;
+                offsetZ = this.items[0].offsetZ;
+            }
+            setPaths(new Shape(curve.tessellate(vertices)).orderedPaths());
+            for (Item item : this.items) {
+                item.offsetX = offsetX;
+                item.offsetY = offsetY;
+                item.offsetZ = offsetZ;
+            }
+            this.curve = curve;
+            this.curveVertices = vertices;
+        }
+
+        /**
+         * Move all items by dx, dy, dz
+         */
+        public void translate(double dx, double dy, double dz) {
+            checkRemoved();
+            for (Item item : this.items) {
+                item.offsetX += dx;
+                item.offsetY += dy;
+                item.offsetZ += dz;
+                if (this.visible) {
+                    this.isometric.refresh(item);
+                }
+            }
+        }
+
+        /**
+         * Change the color before lighting, nothing is projected or sorted again
+         */
+        public void setColor(Color color) {
+            checkRemoved();
+            this.color = color;
+            for (Item item : this.items) {
+                item.originalColor = color;
+                this.isometric.light(item);
+                if (item.attached) {
+                    this.isometric.addDirtyRegion(item);
+                }
+            }
+            this.isometric.revision++;
+        }
+
+        public void setVisible(boolean visible) {
+            checkRemoved();
+            if (this.visible == visible) {
+                return;
+            }
+            this.visible = visible;
+            if (visible) {
+                for (Item item : this.items) {
+                    this.isometric.refresh(item);
+                }
+            } else {
+                this.isometric.removeItems(Arrays.asList(this.items));
+            }
+        }
+
+        public void remove() {
+            if (this.removed) {
+                return;
+            }
+            this.isometric.removeItems(Arrays.asList(this.items));
+            this.removed = true;
+        }
+
+        /**
+         * Drop items that were removed from the Isometric on their own. The rest is no longer the curve
+         */
+        void forget(Set<Item> removed) {
+            Item[] items = new Item[this.items.length];
+            int kept = 0;
+            for (Item item : this.items) {
+                if (removed.contains(item)) {
+                    item.handle = null;
+                } else {
+                    items[kept++] = item;
+                }
+            }
+            if (kept < items.length) {
+                this.items = Arrays.copyOf(items, kept);
+                this.curve = null;
+            }
+        }
+
+        private void checkRemoved() {
+            if (this.removed) {
+                throw new IllegalStateException("The handle has been removed");
+            }
+        }
+    }
+
+    private void light(Item item) {
+        item.light(this.lightAngle, this.lightColor, this.lightRevision, Color.getLightingCache());
+        recordChange(item);
+    }
+
+    /**
+     * Project and sort an item of a handle again on the next measure, items that were culled are added again
+     */
+    private void refresh(Item item) {
+        if (item.attached) {
+            markDirty(item);
+            this.itemsChanged = true;
+        } else {
+            addItem(item);
+        }
+    }
+
+    public static class Item {
+        Path path;
+        //lit color
+        Color baseColor;
+        //color before lighting and the unit normal the lighting is calculated from
+        Color originalColor;
+        Vector faceNormal;
+        //instances share the path of their template and are moved by the offset
+        Template template;
+        int templatePath;
+        //translation of the path, used by instances and handles
+        double offsetX, offsetY, offsetZ;
+        //the handle returned by add and if the item is in the item list
+        Handle handle;
+        boolean attached;
+        //the item a snapshot copy was made from, and if the copy is a path of another tessellation of its curve
+        Item source;
+        boolean tessellated;
+        //changed since the last snapshot of the Isometric
+        boolean recorded;
+        Shape originalShape;
+        //depth sort graph, kept between measures
+        final List<Item> drawBefore = new ArrayList<>();
+        final List<Item> drawAfter = new ArrayList<>();
+        int sortIndex;
+        //cells of the item in the change grid of the Isometric, valid while gridGeneration is the grid's
+        int gridGeneration, gridMinColumn, gridMinRow, gridMaxColumn, gridMaxRow;
+        boolean dirty;
+        //slot of the projected points in the projected geometry store of the Isometric
+        int projectedOffset = -1, projectedLength, projectedGeneration;
+        //screen bounds of the projected points
+        double minX, minY, maxX, maxY;
+        //projected area in square scene pixels, for the minimum face area
+        double area;
+        //plane of the path as normal . p = planeOffset, and the observer's signed position to it
+        double normalX, normalY, normalZ, planeOffset, observerPosition;
+        //convex faces use the separating axis test in the depth sort
+        boolean convex;
+        //lit color in packed ARGB format, and the light revision of the Isometric it was lit with
+        int color, lightRevision;
+        //android drawing objects, only created when the item is drawn on a canvas.
+        //The paint is shared through the PaintPool, paintColor is the color it was acquired for
+        Paint paint;
+        int paintColor;
+        android.graphics.Path drawPath;
+        boolean drawPathValid;
+
+        private Item(Item item) {
+            copyProjection(item);
+            this.color = item.color;
+            //the copy gets its own android path on its first draw, it can be drawn at the same time as the item
+            this.path = item.path;
+            this.baseColor = item.baseColor;
+            this.originalColor = item.originalColor;
+            this.faceNormal = item.faceNormal;
+            this.template = item.template;
+            this.templatePath = item.templatePath;
+            this.offsetX = item.offsetX;
+            this.offsetY = item.offsetY;
+            this.offsetZ = item.offsetZ;
+            this.originalShape = item.originalShape;
+        }
+
+        private Item(Path path, Color originalColor, Shape originalShape) {
+            this(path, originalColor, originalShape, Color.faceNormal(path));
+        }
+
+        private Item(Path path, Color originalColor, Shape originalShape, Vector faceNormal) {
+            this.path = path;
+            this.originalColor = originalColor;
+            this.originalShape = originalShape;
+            this.faceNormal = faceNormal;
+        }
+
+        /**
+         * Take over the projected slot, bounds and plane of another item
+         */
+        void copyProjection(Item item) {
+            this.projectedOffset = item.projectedOffset;
+            this.projectedLength = item.projectedLength;
+            this.projectedGeneration = item.projectedGeneration;
+            this.minX = item.minX;
+            this.minY = item.minY;
+            this.maxX = item.maxX;
+            this.maxY = item.maxY;
+            this.normalX = item.normalX;
+            this.normalY = item.normalY;
+            this.normalZ = item.normalZ;
+            this.planeOffset = item.planeOffset;
+            this.observerPosition = item.observerPosition;
+            this.convex = item.convex;
+            this.area = item.area;
+        }
+
+        void light(Vector lightAngle, Color lightColor, int lightRevision, LightingCache cache) {
+            this.lightRevision = lightRevision;
+            this.baseColor = Color.light(this.originalColor, Color.brightness(this.faceNormal, lightAngle), lightColor, cache);
+            this.color = this.baseColor.toArgb();
+        }
+
+        /**
+         * Get the paint from the pool and rebuild the path for draw(Canvas) if needed
+         */
+        void prepareCanvasDrawing(double[] projected, PaintPool paintPool) {
+            if (this.paint == null || this.paintColor != this.color) {
+                //first draw, or relit since the last draw
+                if (this.paint != null) {
+                    paintPool.release(this.paintColor);
+                }
+                this.paint = paintPool.acquire(this.color);
+                this.paintColor = this.color;
+            }
+            if (this.drawPath == null) {
+                this.drawPath = new android.graphics.Path();
+            } else if (this.drawPathValid) {
+                return;
+            } else if (!this.drawPath.isEmpty()) {
+                this.drawPath.rewind();//Todo: test if .reset is not needed and rewind is enough
+            }
+            int offset = this.projectedOffset;
+            this.drawPath.moveTo((float) projected[offset], (float) projected[offset + 1]);
+
+            for (int i = 1; i < this.projectedLength; i++) {
+                this.drawPath.lineTo((float) projected[offset + i * 2], (float) projected[offset + i * 2 + 1]);
+            }
+
+            this.drawPath.close();
+            this.drawPathValid = true;
+        }
+
+        void measureBounds(double[] projected) {
+            int offset = projectedOffset;
+            double minX = projected[offset], minY = projected[offset + 1], maxX = minX, maxY = minY;
+            for (int i = offset + 2, end = offset + projectedLength * 2; i < end; i += 2) {
+                minX = Math.min(minX, projected[i]);
+                minY = Math.min(minY, projected[i + 1]);
+                maxX = Math.max(maxX, projected[i]);
+                maxY = Math.max(maxY, projected[i + 1]);
+            }
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+        }
+
+        void measureArea(double[] projected) {
+            //shoelace formula over the projected points
+            int offset = projectedOffset, length = projectedLength;
+            double area = 0;
+            for (int i = 0, j = length - 1; i < length; j = i++) {
+                area += projected[offset + j * 2] * projected[offset + i * 2 + 1] - projected[offset + i * 2] * projected[offset + j * 2 + 1];
+            }
+            this.area = Math.abs(area) / 2;
+        }
+
+        /**
+         * Cache the plane used by the depth sort, same calculation as Path.countCloserThan
+         */
+        void measurePlane() {
+            double aX = path.getX(0), aY = path.getY(0), aZ = path.getZ(0);
+            double abX = path.getX(1) - aX, abY = path.getY(1) - aY, abZ = path.getZ(1) - aZ;
+            double acX = path.getX(2) - aX, acY = path.getY(2) - aY, acZ = path.getZ(2) - aZ;
+            double normalX = abY * acZ - acY * abZ;
+            double normalY = -1 * (abX * acZ - acX * abZ);
+            double normalZ = abX * acY - acX * abY;
+            this.normalX = normalX;
+            this.normalY = normalY;
+            this.normalZ = normalZ;
+            this.planeOffset = normalX * (aX + offsetX) + normalY * (aY + offsetY) + normalZ * (aZ + offsetZ);
+            this.observerPosition = normalX * OBSERVER.x + normalY * OBSERVER.y + normalZ * OBSERVER.z - this.planeOffset;
+        }
+
+        public static Item createItem(Path path, Color color, Shape originalShape){
+            Item item = new Item(path, color, originalShape);
+            item.light(DEFAULT_LIGHT_ANGLE, DEFAULT_LIGHT_COLOR, 0, Color.getLightingCache());
+            return item;
+        }
+
+        public static Item copyItem(Item oldItem){
+            return new Item(oldItem);
+        }
+
+        /**
+         * The path of the item. For instances and translated handles this is a new path moved by the item's offset.
+         */
+        public Path getPath() {
+            if (offsetX != 0 || offsetY != 0 || offsetZ != 0) {
+                return path.translate(offsetX, offsetY, offsetZ);
+            }
+            return path;
+        }
+
+        /**
+         * The handle returned when the item was added, null for items created with createItem
+         * and items removed with remove(Item)
+         */
+        public Handle getHandle() {
+            return handle;
+        }
+
+        /**
+         * The item this one was copied from by snapshot(), the item itself otherwise
+         */
+        public Item getSource() {
+            return source != null ? source : this;
+        }
+
+        public Shape getOriginalShape() {
+            return originalShape;
+        }
+
+        public int getProjectedOffset() {
+            return projectedOffset;
+        }
+
+        public int getProjectedLength() {
+            return projectedLength;
         }
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package io.fabianterhorst.isometric;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.os.Build;
 import androidx.annotation.NonNull;
@@ -9,6 +10,12 @@ import android.view.MotionEvent;
 import android.view.View;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Created by fabianterhorst on 31.03.17.
@@ -28,6 +35,45 @@ public class IsometricView extends View {
 
     private double touchRadius = 1;
 
+    private boolean fitToScene;
+
+    private double fitPadding;
+
+    //size of the cached tiles in pixels
+    private static final int TILE_SIZE = 256;
+
+    private boolean tileCache;
+
+    //rendered tiles row by row, only tiles that overlap a changed region are rendered again
+    private Bitmap[] tiles;
+
+    private int tileColumns, tileRows;
+
+    private final Canvas tileCanvas = new Canvas();
+
+    private final double[] dirtyRegion = new double[4];
+
+    private boolean asyncPreparation;
+
+    //measures snapshots of the isometric, created when the first frame is prepared
+    private ExecutorService frameExecutor;
+
+    private Future<?> pendingFrame;
+
+    //the latest prepared frame, swapped in by the worker when it is done
+    private final AtomicReference<Isometric> frame = new AtomicReference<>();
+
+    //a worker only publishes its frame if no newer frame has been requested in the meantime
+    private final AtomicInteger frameGeneration = new AtomicInteger();
+
+    private int frameWidth, frameHeight, preparedWidth = -1, preparedHeight = -1, preparedRevision;
+
+    //the last snapshot taken, the next one continues it so only the changes are copied, sorted and drawn again
+    private Isometric preparedFrame;
+
+    //the frame on the screen
+    private Isometric drawnFrame;
+
     public IsometricView(Context context) {
         super(context);
     }
@@ -36,6 +82,13 @@ public class IsometricView extends View {
         this.sort = sort;
     }
 
+    /**
+     * Run the depth sort of large scenes on all cores
+     */
+    public void setParallelSort(boolean parallelSort) {
+        this.isometric.setParallelSort(parallelSort);
+    }
+
     /**
      * This greatly improves drawing speed
      * Paths must be defined in a counter-clockwise rotation order
@@ -59,6 +112,63 @@ public class IsometricView extends View {
         this.reverseSortForLookup = reverseSortForLookup;
     }
 
+    /**
+     * Change the light and recolor the drawing, nothing is sorted again
+     */
+    public void setLight(Vector lightAngle, Color lightColor) {
+        this.isometric.setLight(lightAngle, lightColor);
+        invalidate();
+    }
+
+    /**
+     * Tessellate curved shapes like Cylinder with fewer vertices when they are small on the screen and
+     * skip faces smaller than minFaceArea square pixels at the current zoom, see Isometric.setLevelOfDetail
+     */
+    public void setLevelOfDetail(double curveTolerance, double minFaceArea) {
+        this.isometric.setLevelOfDetail(curveTolerance, minFaceArea);
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * Find the touched item in an offscreen buffer of item indices, used when reverseSortForLookup is set
+     *
+     * @param scale resolution of the buffer relative to the view
+     */
+    public void setIdBufferPicking(boolean idBufferPicking, double scale) {
+        this.isometric.setIdBufferPicking(idBufferPicking, scale);
+    }
+
+    /**
+     * Keep the rendered drawing in tiles of 256x256 pixels and only render the tiles again that
+     * contain changed items. This needs a bitmap of the view size but makes redraws of a large
+     * drawing with a few changing items cheap.
+     */
+    public void setTileCache(boolean tileCache) {
+        this.tileCache = tileCache;
+        releaseTiles();
+        invalidate();
+    }
+
+    /**
+     * Project and sort the drawing on a background thread instead of in onMeasure. The worker measures a
+     * snapshot of the items, onDraw draws the latest prepared frame and never waits for a new one.
+     * A frame that is still being prepared is dropped when the items change again. Each snapshot continues
+     * the one before, so the UI thread only copies the items that changed, and the worker only projects and
+     * sorts those again.
+     * After changing the items call invalidate() to prepare a new frame.
+     */
+    public void setAsyncPreparation(boolean asyncPreparation) {
+        this.asyncPreparation = asyncPreparation;
+        if (!asyncPreparation) {
+            stopPreparation();
+            this.frame.set(null);
+            this.drawnFrame = null;
+        }
+        requestLayout();
+        invalidate();
+    }
+
     /**
      * Allow the click lookup to consider a touch region defined by a circle instead of a fixed point
      */
@@ -84,6 +194,8 @@ public class IsometricView extends View {
     public void updateItems(List<Isometric.Item> items) {
         if (items != null){
             this.isometric.updateItems(items, this.cull, this.boundsCheck);
+            //measure again so the depth order of the changed items is updated
+            requestLayout();
             invalidate();
         }
     }
@@ -100,16 +212,69 @@ public class IsometricView extends View {
         return isometric;
     }
 
+    /**
+     * Zoom and pan the drawing without projecting or sorting it again, only curves whose level of detail
+     * changes are tessellated again. A view point is scene point * zoom + pan.
+     */
+    public void setCamera(double zoom, double panX, double panY) {
+        this.isometric.setCamera(zoom, panX, panY);
+        cameraChanged();
+    }
+
+    public void resetCamera() {
+        this.isometric.resetCamera();
+        cameraChanged();
+    }
+
+    /**
+     * Move the drawing by dx and dy pixels
+     */
+    public void pan(double dx, double dy) {
+        this.isometric.pan(dx, dy);
+        cameraChanged();
+    }
+
+    /**
+     * Zoom by a factor around the view point (focusX, focusY), e.g. the center of a pinch gesture
+     */
+    public void zoom(double factor, double focusX, double focusY) {
+        this.isometric.zoom(factor, focusX, focusY);
+        cameraChanged();
+    }
+
+    private void cameraChanged() {
+        if (!asyncPreparation && isometric.needsMeasure()) {
+            //the zoom changed the level of detail of curves
+            requestLayout();
+        }
+        invalidate();
+    }
+
+    /**
+     * Zoom and pan so the whole drawing fits into the view, applied on the next draw
+     */
+    public void fitToScene(double padding) {
+        this.fitPadding = padding;
+        this.fitToScene = true;
+        invalidate();
+    }
+
     /**
      * Get the drawing item associated with an x/y position
      */
     public Isometric.Item getItemForPosition(float x, float y){
-        return isometric.findItemForPosition(
+        Isometric drawn = getDrawnIsometric();
+        if (drawn == null) {
+            return null;
+        }
+        Isometric.Item item = drawn.findItemForPosition(
                 new Point(x, y),
                 this.reverseSortForLookup,
                 this.touchRadiusLookup,
                 this.touchRadius
         );
+        //items of a prepared frame are copies
+        return item != null ? item.getSource() : null;
     }
 
     public void setClickListener(OnItemClickListener listener) {
@@ -124,12 +289,23 @@ public class IsometricView extends View {
         isometric.clear();
     }
 
-    public void add(Path path, Color color) {
-        isometric.add(path, color);
+    public Isometric.Handle add(Path path, Color color) {
+        return isometric.add(path, color);
+    }
+
+    public Isometric.Handle add(Shape shape, Color color) {
+        return isometric.add(shape, color);
+    }
+
+    /**
+     * Add translated copies of a shape, offsets holds the x, y, z translation of every copy
+     */
+    public Isometric.Handle addInstances(Shape shape, Color color, double[] offsets) {
+        return isometric.addInstances(shape, color, offsets);
     }
 
-    public void add(Shape shape, Color color) {
-        isometric.add(shape, color);
+    public void remove(Isometric.Item item) {
+        isometric.remove(item);
     }
 
     public IsometricView(Context context, AttributeSet attrs) {
@@ -148,13 +324,168 @@ public class IsometricView extends View {
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-        isometric.measure(MeasureSpec.getSize(widthMeasureSpec), MeasureSpec.getSize(heightMeasureSpec), sort, cull, boundsCheck);
+        frameWidth = MeasureSpec.getSize(widthMeasureSpec);
+        frameHeight = MeasureSpec.getSize(heightMeasureSpec);
+        if (asyncPreparation) {
+            prepareFrame();
+        } else {
+            isometric.measure(frameWidth, frameHeight, sort, cull, boundsCheck);
+        }
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-        isometric.draw(canvas);
+        if (asyncPreparation) {
+            prepareFrame();
+        }
+        Isometric drawn = getDrawnIsometric();
+        if (drawn == null) {
+            //the first frame is not prepared yet
+            return;
+        }
+        if (drawn != drawnFrame) {
+            //the tiles show drawnFrame, a frame that does not continue it is drawn completely
+            drawn.continueDrawing(drawnFrame);
+            drawnFrame = drawn;
+        }
+        if (fitToScene && drawn.fitToScene(fitPadding)) {
+            fitToScene = false;
+            isometric.setCamera(drawn.getCameraZoom(), drawn.getCameraPanX(), drawn.getCameraPanY());
+            //the zoom can change the level of detail of curves
+            if (asyncPreparation ? isometric.getRevision() != preparedRevision : isometric.needsMeasure()) {
+                requestLayout();
+                invalidate();
+            }
+        }
+        if (!tileCache) {
+            drawn.draw(canvas);
+            return;
+        }
+        drawTiles(canvas, drawn);
+    }
+
+    /**
+     * The isometric that is drawn, the latest prepared frame with asynchronous preparation
+     */
+    private Isometric getDrawnIsometric() {
+        if (!asyncPreparation) {
+            return isometric;
+        }
+        Isometric drawn = frame.get();
+        if (drawn != null) {
+            //the camera never needs a new frame
+            drawn.setCamera(isometric.getCameraZoom(), isometric.getCameraPanX(), isometric.getCameraPanY());
+        }
+        return drawn;
+    }
+
+    /**
+     * Measure a snapshot of the items on the worker if the items or the size changed since the last frame
+     */
+    private void prepareFrame() {
+        final int width = frameWidth, height = frameHeight, revision = isometric.getRevision();
+        if (width == preparedWidth && height == preparedHeight && revision == preparedRevision) {
+            return;
+        }
+        preparedWidth = width;
+        preparedHeight = height;
+        final Isometric snapshot = isometric.snapshot(preparedFrame);
+        preparedFrame = snapshot;
+        preparedRevision = isometric.getRevision();
+        final int generation = frameGeneration.incrementAndGet();
+        final boolean sort = this.sort, cull = this.cull, boundsCheck = this.boundsCheck;
+        if (pendingFrame != null) {
+            pendingFrame.cancel(false);
+        }
+        if (frameExecutor == null) {
+            frameExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(@NonNull Runnable runnable) {
+                    Thread thread = new Thread(runnable, "IsometricView frame");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        pendingFrame = frameExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                snapshot.measure(width, height, sort, cull, boundsCheck);
+                //the single worker runs the frames in order, so a newer frame cannot be overwritten
+                if (frameGeneration.get() == generation) {
+                    frame.set(snapshot);
+                    postInvalidate();
+                }
+            }
+        });
+    }
+
+    private void stopPreparation() {
+        if (frameExecutor != null) {
+            frameExecutor.shutdownNow();
+            frameExecutor = null;
+        }
+        pendingFrame = null;
+        //a worker that was stopped may still be measuring, the next snapshot copies everything
+        preparedFrame = null;
+        frameGeneration.incrementAndGet();
+        preparedWidth = preparedHeight = -1;
+    }
+
+    private void drawTiles(Canvas canvas, Isometric drawn) {
+        int columns = (getWidth() + TILE_SIZE - 1) / TILE_SIZE, rows = (getHeight() + TILE_SIZE - 1) / TILE_SIZE;
+        boolean dirty = drawn.takeDirtyRegion(dirtyRegion);
+        if (tiles == null || columns != tileColumns || rows != tileRows) {
+            releaseTiles();
+            tiles = new Bitmap[columns * rows];
+            tileColumns = columns;
+            tileRows = rows;
+        }
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                int left = column * TILE_SIZE, top = row * TILE_SIZE;
+                Bitmap tile = tiles[row * columns + column];
+                if (tile == null) {
+                    tile = Bitmap.createBitmap(TILE_SIZE, TILE_SIZE, Bitmap.Config.ARGB_8888);
+                    tiles[row * columns + column] = tile;
+                    renderTile(drawn, tile, left, top);
+                } else if (dirty && left <= dirtyRegion[2] && left + TILE_SIZE >= dirtyRegion[0]
+                        && top <= dirtyRegion[3] && top + TILE_SIZE >= dirtyRegion[1]) {
+                    renderTile(drawn, tile, left, top);
+                }
+                canvas.drawBitmap(tile, left, top, null);
+            }
+        }
+    }
+
+    private void renderTile(Isometric drawn, Bitmap tile, int left, int top) {
+        tile.eraseColor(android.graphics.Color.TRANSPARENT);
+        tileCanvas.setBitmap(tile);
+        tileCanvas.save();
+        tileCanvas.clipRect(0, 0, TILE_SIZE, TILE_SIZE);
+        tileCanvas.translate(-left, -top);
+        drawn.draw(tileCanvas, left, top, left + TILE_SIZE, top + TILE_SIZE);
+        tileCanvas.restore();
+        tileCanvas.setBitmap(null);
+    }
+
+    private void releaseTiles() {
+        if (tiles != null) {
+            for (Bitmap tile : tiles) {
+                if (tile != null) {
+                    tile.recycle();
+                }
+            }
+            tiles = null;
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        releaseTiles();
+        stopPreparation();
     }
 
     @Override
@@ -0,0 +1,163 @@
+package io.fabianterhorst.isometric;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Screen-space grid over the projected bounding boxes of the items, kept between measures for the
+ * incremental depth sort. Unlike SpatialGrid the cells hold the items themselves instead of list
+ * indices, so a changed item only moves between its own cells and the rest of the grid stays as it is.
+ *
+ * The cells are picked when the grid is built, boxes that reach outside of the grid later are clamped
+ * to its border cells.
+ */
+class ItemGrid {
+
+    private double gridX, gridY, cellSize;
+    private int columns, rows;
+
+    private Isometric.Item[][] cells = new Isometric.Item[0][];
+    private int[] cellSizes = new int[0];
+
+    //items remember the generation of the grid they were added to, the cells of older grids are gone
+    private int generation;
+    private boolean built;
+
+    boolean isBuilt() {
+        return this.built;
+    }
+
+    /**
+     * Drop all items, the next build starts over
+     */
+    void invalidate() {
+        if (this.built) {
+            this.built = false;
+            this.generation++;
+            this.cells = new Isometric.Item[0][];
+            this.cellSizes = new int[0];
+        }
+    }
+
+    /**
+     * Rebuild the grid from the bounding boxes of the given items
+     */
+    void build(List<Isometric.Item> items) {
+        this.generation++;
+        this.built = true;
+        int length = items.size();
+        double gridMinX = Double.POSITIVE_INFINITY, gridMinY = Double.POSITIVE_INFINITY;
+        double gridMaxX = Double.NEGATIVE_INFINITY, gridMaxY = Double.NEGATIVE_INFINITY;
+        double totalWidth = 0, totalHeight = 0;
+        for (int i = 0; i < length; i++) {
+            Isometric.Item item = items.get(i);
+            gridMinX = Math.min(gridMinX, item.minX);
+            gridMinY = Math.min(gridMinY, item.minY);
+            gridMaxX = Math.max(gridMaxX, item.maxX);
+            gridMaxY = Math.max(gridMaxY, item.maxY);
+            totalWidth += item.maxX - item.minX;
+            totalHeight += item.maxY - item.minY;
+        }
+        if (length == 0) {
+            gridMinX = gridMinY = gridMaxX = gridMaxY = 0;
+        }
+        double spanX = gridMaxX - gridMinX, spanY = gridMaxY - gridMinY;
+        this.gridX = gridMinX;
+        this.gridY = gridMinY;
+        this.cellSize = SpatialGrid.cellSize(totalWidth, totalHeight, spanX, spanY, Math.max(length, 1));
+        this.columns = (int) (spanX / this.cellSize) + 1;
+        this.rows = (int) (spanY / this.cellSize) + 1;
+        this.cells = new Isometric.Item[this.columns * this.rows][];
+        this.cellSizes = new int[this.columns * this.rows];
+        for (int i = 0; i < length; i++) {
+            add(items.get(i));
+        }
+    }
+
+    /**
+     * Register an item in the cells of its current bounding box
+     */
+    void add(Isometric.Item item) {
+        item.gridGeneration = this.generation;
+        item.gridMinColumn = column(item.minX);
+        item.gridMaxColumn = column(item.maxX);
+        item.gridMinRow = row(item.minY);
+        item.gridMaxRow = row(item.maxY);
+        for (int r = item.gridMinRow; r <= item.gridMaxRow; r++) {
+            for (int c = item.gridMinColumn; c <= item.gridMaxColumn; c++) {
+                int cell = r * this.columns + c;
+                Isometric.Item[] items = this.cells[cell];
+                int size = this.cellSizes[cell];
+                if (items == null) {
+                    items = this.cells[cell] = new Isometric.Item[4];
+                } else if (size == items.length) {
+                    items = this.cells[cell] = Arrays.copyOf(items, size * 2);
+                }
+                items[size] = item;
+                this.cellSizes[cell] = size + 1;
+            }
+        }
+    }
+
+    /**
+     * Remove an item from the cells it was added to, e.g. before its bounding box changes
+     */
+    void remove(Isometric.Item item) {
+        if (item.gridGeneration != this.generation || !this.built) {
+            return;
+        }
+        item.gridGeneration = 0;
+        for (int r = item.gridMinRow; r <= item.gridMaxRow; r++) {
+            for (int c = item.gridMinColumn; c <= item.gridMaxColumn; c++) {
+                int cell = r * this.columns + c;
+                Isometric.Item[] items = this.cells[cell];
+                int size = this.cellSizes[cell];
+                for (int k = 0; k < size; k++) {
+                    if (items[k] == item) {
+                        items[k] = items[size - 1];
+                        items[size - 1] = null;
+                        this.cellSizes[cell] = size - 1;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Collect the items whose bounding boxes overlap the box of the given item (borders included), each once.
+     * The item has to be in the grid.
+     */
+    void findOverlapping(Isometric.Item item, List<Isometric.Item> result) {
+        for (int r = item.gridMinRow; r <= item.gridMaxRow; r++) {
+            for (int c = item.gridMinColumn; c <= item.gridMaxColumn; c++) {
+                int cell = r * this.columns + c;
+                Isometric.Item[] items = this.cells[cell];
+                for (int k = 0, size = this.cellSizes[cell]; k < size; k++) {
+                    Isometric.Item other = items[k];
+                    if (other == item) {
+                        continue;
+                    }
+                    //only report an item in the first cell both items share
+                    if (Math.max(item.gridMinColumn, other.gridMinColumn) != c || Math.max(item.gridMinRow, other.gridMinRow) != r) {
+                        continue;
+                    }
+                    if (item.maxX < other.minX || item.minX > other.maxX || item.maxY < other.minY || item.minY > other.maxY) {
+                        continue;
+                    }
+                    result.add(other);
+                }
+            }
+        }
+    }
+
+    private int column(double x) {
+        int column = (int) ((x - this.gridX) / this.cellSize);
+        return column < 0 ? 0 : (column >= this.columns ? this.columns - 1 : column);
+    }
+
+    private int row(double y) {
+        int row = (int) ((y - this.gridY) / this.cellSize);
+        return row < 0 ? 0 : (row >= this.rows ? this.rows - 1 : row);
+    }
+}
@@ -0,0 +1,113 @@
+package io.fabianterhorst.isometric;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of lit colors. Scenes built from a few colors and face directions ask for the same
+ * lighting over and over again, this skips the HSL conversion and the allocation for repeated requests.
+ *
+ * Entries are keyed on the exact bits of the lighten percentage and the packed base and light colors,
+ * so a cached color is identical to a freshly calculated one. Colors with fractional channels are not cached.
+ * The least recently used entry is evicted once the cache is full.
+ *
+ * The cache is not synchronized, every thread uses its own one (see Color.getLightingCache).
+ */
+public class LightingCache {
+
+    public static final int DEFAULT_MAX_SIZE = 4096;
+
+    private final Map<Key, Color> colors;
+
+    private long hits, misses;
+
+    public LightingCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public LightingCache(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size has to be positive");
+        }
+        this.colors = new LinkedHashMap<Key, Color>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Color> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Same result as color.lighten(percentage, lightColor)
+     */
+    public Color lighten(Color color, double percentage, Color lightColor) {
+        if (!isPacked(color) || !isPacked(lightColor)) {
+            this.misses++;
+            return color.lighten(percentage, lightColor);
+        }
+        Key key = new Key(Double.doubleToLongBits(percentage), color.toArgb(), lightColor.toArgb());
+        Color lit = this.colors.get(key);
+        if (lit == null) {
+            this.misses++;
+            lit = color.lighten(percentage, lightColor);
+            this.colors.put(key, lit);
+        } else {
+            this.hits++;
+        }
+        return lit;
+    }
+
+    public void clear() {
+        this.colors.clear();
+        this.hits = this.misses = 0;
+    }
+
+    public int size() {
+        return this.colors.size();
+    }
+
+    public long getHitCount() {
+        return this.hits;
+    }
+
+    public long getMissCount() {
+        return this.misses;
+    }
+
+    /**
+     * Whether the color is fully described by its packed ARGB value
+     */
+    private static boolean isPacked(Color color) {
+        return isChannel(color.r) && isChannel(color.g) && isChannel(color.b) && isChannel(color.a);
+    }
+
+    private static boolean isChannel(double value) {
+        return value >= 0 && value <= 255 && value == (int) value;
+    }
+
+    private static final class Key {
+        final long percentage;
+        final int color, lightColor;
+
+        Key(long percentage, int color, int lightColor) {
+            this.percentage = percentage;
+            this.color = color;
+            this.lightColor = lightColor;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return percentage == key.percentage && color == key.color && lightColor == key.lightColor;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = (int) (percentage ^ (percentage >>> 32));
+            result = 31 * result + color;
+            return 31 * result + lightColor;
+        }
+    }
+}
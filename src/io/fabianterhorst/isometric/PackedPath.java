@@ -0,0 +1,228 @@
+package io.fabianterhorst.isometric;
+
+import java.util.Arrays;
+
+/**
+ * Path that stores its points as x, y, z triples in a single double array instead of Point objects.
+ *
+ * Isometric reads the coordinates directly, Point objects are only created by getPoints().
+ * All transformations return packed paths again, with the same coordinates as the Path versions.
+ */
+public class PackedPath extends Path {
+
+    protected double[] coordinates;
+
+    /**
+     * @param coordinates x, y, z of every point, the array is used without copying it
+     */
+    public PackedPath(double[] coordinates) {
+        if (coordinates.length % 3 != 0) {
+            throw new IllegalArgumentException("The coordinates have to be x, y, z triples");
+        }
+        this.coordinates = coordinates;
+    }
+
+    public PackedPath(Point[] points) {
+        this(pack(points));
+    }
+
+    /**
+     * Packed copy of any path
+     */
+    public PackedPath(Path path) {
+        int length = path.size();
+        double[] coordinates = new double[length * 3];
+        for (int i = 0; i < length; i++) {
+            coordinates[i * 3] = path.getX(i);
+            coordinates[i * 3 + 1] = path.getY(i);
+            coordinates[i * 3 + 2] = path.getZ(i);
+        }
+        this.coordinates = coordinates;
+    }
+
+    private static double[] pack(Point[] points) {
+        double[] coordinates = new double[points.length * 3];
+        for (int i = 0; i < points.length; i++) {
+            coordinates[i * 3] = points[i].x;
+            coordinates[i * 3 + 1] = points[i].y;
+            coordinates[i * 3 + 2] = points[i].z;
+        }
+        return coordinates;
+    }
+
+    /**
+     * The x, y, z triples of the points, changes are not tracked by an Isometric that already contains the path
+     */
+    public double[] getCoordinates() {
+        return coordinates;
+    }
+
+    @Override
+    public int size() {
+        return coordinates.length / 3;
+    }
+
+    @Override
+    public double getX(int index) {
+        return coordinates[index * 3];
+    }
+
+    @Override
+    public double getY(int index) {
+        return coordinates[index * 3 + 1];
+    }
+
+    @Override
+    public double getZ(int index) {
+        return coordinates[index * 3 + 2];
+    }
+
+    @Override
+    public void push(Point point) {
+        int length = coordinates.length;
+        coordinates = Arrays.copyOf(coordinates, length + 3);
+        coordinates[length] = point.x;
+        coordinates[length + 1] = point.y;
+        coordinates[length + 2] = point.z;
+    }
+
+    @Override
+    public void setPoints(Point[] points) {
+        this.coordinates = pack(points);
+    }
+
+    /**
+     * New points with the coordinates of this path
+     */
+    @Override
+    public Point[] getPoints() {
+        Point[] points = new Point[size()];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new Point(coordinates[i * 3], coordinates[i * 3 + 1], coordinates[i * 3 + 2]);
+        }
+        return points;
+    }
+
+    @Override
+    public PackedPath reverse() {
+        double[] reversed = new double[coordinates.length];
+        for (int i = 0, end = coordinates.length - 3; i < coordinates.length; i += 3) {
+            reversed[end - i] = coordinates[i];
+            reversed[end - i + 1] = coordinates[i + 1];
+            reversed[end - i + 2] = coordinates[i + 2];
+        }
+        return new PackedPath(reversed);
+    }
+
+    @Override
+    public PackedPath translate(double dx, double dy, double dz) {
+        double[] translated = new double[coordinates.length];
+        for (int i = 0; i < coordinates.length; i += 3) {
+            translated[i] = coordinates[i] + dx;
+            translated[i + 1] = coordinates[i + 1] + dy;
+            translated[i + 2] = coordinates[i + 2] + dz;
+        }
+        return new PackedPath(translated);
+    }
+
+    @Override
+    public PackedPath translatePoints(double dx, double dy, double dz) {
+        for (int i = 0; i < coordinates.length; i += 3) {
+            coordinates[i] += dx;
+            coordinates[i + 1] += dy;
+            coordinates[i + 2] += dz;
+        }
+        return this;
+    }
+
+    @Override
+    public PackedPath rotateX(Point origin, double angle) {
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        double[] rotated = new double[coordinates.length];
+        for (int i = 0; i < coordinates.length; i += 3) {
+            double pY = coordinates[i + 1] - origin.y;
+            double pZ = coordinates[i + 2] - origin.z;
+            rotated[i] = coordinates[i];
+            rotated[i + 1] = pZ * sin + pY * cos + origin.y;
+            rotated[i + 2] = pZ * cos - pY * sin + origin.z;
+        }
+        return new PackedPath(rotated);
+    }
+
+    @Override
+    public PackedPath rotateY(Point origin, double angle) {
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        double[] rotated = new double[coordinates.length];
+        for (int i = 0; i < coordinates.length; i += 3) {
+            double pX = coordinates[i] - origin.x;
+            double pZ = coordinates[i + 2] - origin.z;
+            rotated[i] = pX * cos - pZ * sin + origin.x;
+            rotated[i + 1] = coordinates[i + 1];
+            rotated[i + 2] = pX * sin + pZ * cos + origin.z;
+        }
+        return new PackedPath(rotated);
+    }
+
+    @Override
+    public PackedPath rotateZ(Point origin, double angle) {
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        double[] rotated = new double[coordinates.length];
+        for (int i = 0; i < coordinates.length; i += 3) {
+            double pX = coordinates[i] - origin.x;
+            double pY = coordinates[i + 1] - origin.y;
+            rotated[i] = pX * cos - pY * sin + origin.x;
+            rotated[i + 1] = pX * sin + pY * cos + origin.y;
+            rotated[i + 2] = coordinates[i + 2];
+        }
+        return new PackedPath(rotated);
+    }
+
+    @Override
+    public PackedPath transform(Transform transform) {
+        double[] transformed = new double[coordinates.length];
+        for (int i = 0; i < coordinates.length; i += 3) {
+            double x = coordinates[i], y = coordinates[i + 1], z = coordinates[i + 2];
+            transformed[i] = transform.applyX(x, y, z);
+            transformed[i + 1] = transform.applyY(x, y, z);
+            transformed[i + 2] = transform.applyZ(x, y, z);
+        }
+        return new PackedPath(transformed);
+    }
+
+    @Override
+    public PackedPath scale(Point origin, double dx, double dy, double dz) {
+        double[] scaled = new double[coordinates.length];
+        for (int i = 0; i < coordinates.length; i += 3) {
+            scaled[i] = (coordinates[i] - origin.x) * dx + origin.x;
+            scaled[i + 1] = (coordinates[i + 1] - origin.y) * dy + origin.y;
+            scaled[i + 2] = (coordinates[i + 2] - origin.z) * dz + origin.z;
+        }
+        return new PackedPath(scaled);
+    }
+
+    @Override
+    public PackedPath scale(Point origin, double dx, double dy) {
+        return scale(origin, dx, dy, 1);
+    }
+
+    @Override
+    public PackedPath scale(Point origin, double dx) {
+        return scale(origin, dx, dx, dx);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PackedPath path = (PackedPath) o;
+        return Arrays.equals(coordinates, path.coordinates);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(coordinates);
+    }
+}
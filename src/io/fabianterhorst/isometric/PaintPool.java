@@ -0,0 +1,55 @@
+package io.fabianterhorst.isometric;
+
+import android.graphics.Paint;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shared paints for the items of an Isometric, one per lit color. All items are drawn with the same
+ * anti-aliased fill and 1px stroke, so the packed ARGB color is the only part of a paint that differs.
+ *
+ * Paints are reference counted and dropped when the last item using the color releases it.
+ * The pool is only used from the drawing thread and is not synchronized.
+ */
+class PaintPool {
+
+    private final Map<Integer, Entry> paints = new HashMap<>();
+
+    Paint acquire(int color) {
+        Entry entry = this.paints.get(color);
+        if (entry == null) {
+            Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            paint.setStyle(Paint.Style.FILL_AND_STROKE);
+            paint.setStrokeWidth(1);
+            paint.setColor(color);
+            entry = new Entry(paint);
+            this.paints.put(color, entry);
+        }
+        entry.references++;
+        return entry.paint;
+    }
+
+    void release(int color) {
+        Entry entry = this.paints.get(color);
+        if (entry != null && --entry.references == 0) {
+            this.paints.remove(color);
+        }
+    }
+
+    /**
+     * Number of distinct paints in use
+     */
+    int size() {
+        return this.paints.size();
+    }
+
+    private static final class Entry {
+        final Paint paint;
+        int references;
+
+        Entry(Paint paint) {
+            this.paint = paint;
+        }
+    }
+}
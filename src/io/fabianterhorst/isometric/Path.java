@@ -17,6 +17,9 @@ public class Path {
         this.points = points;
     }
 
+    /**
+     * Copies all points, use a Builder to create paths with many points
+     */
     public void push(Point point) {
         if (points == null) {
             points = new Point[0];
@@ -32,6 +35,25 @@ public class Path {
         return points;
     }
 
+    /**
+     * Number of points, the coordinates can be read with getX, getY and getZ without creating points
+     */
+    public int size() {
+        return points.length;
+    }
+
+    public double getX(int index) {
+        return points[index].x;
+    }
+
+    public double getY(int index) {
+        return points[index].y;
+    }
+
+    public double getZ(int index) {
+        return points[index].z;
+    }
+
     public static Point[] add(Point point, Point[] values) {
         Point[] anotherArray = new Point[values.length + 1];
         System.arraycopy(values, 0, anotherArray, 0, values.length);
@@ -78,32 +100,59 @@ public class Path {
         return new Path(points);
     }
 
+    /**
+     * Same as Point.rotateX for every point, the sine and cosine are only calculated once
+     */
     public Path rotateX(Point origin, double angle) {
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
         Point[] points = new Point[this.points.length];
         Point point;
         for (int i = 0; i < this.points.length; i++) {
             point = this.points[i];
-            points[i] = point.rotateX(origin, angle);
+            double pY = point.y - origin.y;
+            double pZ = point.z - origin.z;
+            points[i] = new Point(point.x, pZ * sin + pY * cos + origin.y, pZ * cos - pY * sin + origin.z);
         }
         return new Path(points);
     }
 
     public Path rotateY(Point origin, double angle) {
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
         Point[] points = new Point[this.points.length];
         Point point;
         for (int i = 0; i < this.points.length; i++) {
             point = this.points[i];
-            points[i] = point.rotateY(origin, angle);
+            double pX = point.x - origin.x;
+            double pZ = point.z - origin.z;
+            points[i] = new Point(pX * cos - pZ * sin + origin.x, point.y, pX * sin + pZ * cos + origin.z);
         }
         return new Path(points);
     }
 
     public Path rotateZ(Point origin, double angle) {
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
         Point[] points = new Point[this.points.length];
         Point point;
         for (int i = 0; i < this.points.length; i++) {
             point = this.points[i];
-            points[i] = point.rotateZ(origin, angle);
+            double pX = point.x - origin.x;
+            double pY = point.y - origin.y;
+            points[i] = new Point(pX * cos - pY * sin + origin.x, pX * sin + pY * cos + origin.y, point.z);
+        }
+        return new Path(points);
+    }
+
+    /**
+     * Apply a composed transform to all points in one pass
+     */
+    public Path transform(Transform transform) {
+        Point[] points = new Point[size()];
+        for (int i = 0; i < points.length; i++) {
+            double x = getX(i), y = getY(i), z = getZ(i);
+            points[i] = new Point(transform.applyX(x, y, z), transform.applyY(x, y, z), transform.applyZ(x, y, z));
         }
         return new Path(points);
     }
@@ -150,9 +199,10 @@ public class Path {
     public double depth() {
         int i;
         double total = 0;
-        int length = this.points.length;
+        int length = size();
         for (i = 0; i < length; i++) {
-            total += this.points[i].depth();
+            /* same as Point.depth */
+            total += getX(i) + getY(i) - 2 * getZ(i);
         }
         if (length == 0) {
             length = 1;
@@ -170,11 +220,12 @@ public class Path {
 
     public int countCloserThan(Path pathA, Point observer) {
         // the plane containing pathA is defined by the three points A, B, C
-        Vector AB = Vector.fromTwoPoints(pathA.points[0], pathA.points[1]);
-        Vector AC = Vector.fromTwoPoints(pathA.points[0], pathA.points[2]);
+        double aX = pathA.getX(0), aY = pathA.getY(0), aZ = pathA.getZ(0);
+        Vector AB = new Vector(pathA.getX(1) - aX, pathA.getY(1) - aY, pathA.getZ(1) - aZ);
+        Vector AC = new Vector(pathA.getX(2) - aX, pathA.getY(2) - aY, pathA.getZ(2) - aZ);
         Vector n = Vector.crossProduct(AB, AC);
 
-        Vector OA = Vector.fromTwoPoints(Point.ORIGIN, pathA.points[0]);
+        Vector OA = new Vector(aX, aY, aZ);
         Vector OU = Vector.fromTwoPoints(Point.ORIGIN, observer); //U = user = observer
 
         // Plane defined by pathA such as ax + by + zc = d
@@ -183,10 +234,9 @@ public class Path {
         double observerPosition = Vector.dotProduct(n, OU) - d;
         int result = 0;
         int result0 = 0;
-        int length = this.points.length;
+        int length = size();
         for (int i = 0; i < length; i++) {
-            Vector OP = Vector.fromTwoPoints(Point.ORIGIN, this.points[i]);
-            double pPosition = Vector.dotProduct(n, OP) - d;
+            double pPosition = n.i * getX(i) + n.j * getY(i) + n.k * getZ(i) - d;
             if (observerPosition * pPosition >= 0.000000001) { //careful with rounding approximations
                 result++;
             }
@@ -202,6 +252,83 @@ public class Path {
         }
     }
 
+    /**
+     * Whether the path is a convex polygon: every corner turns the same way around its plane
+     * and the outline winds around only once
+     */
+    public boolean isConvex() {
+        int length = size();
+        if (length < 4) {
+            return length == 3;
+        }
+
+        //newell normal of the polygon, the path is flattened onto the plane it is most parallel to
+        double normalX = 0, normalY = 0, normalZ = 0;
+        for (int i = 0; i < length; i++) {
+            int next = (i + 1) % length;
+            normalX += (getY(i) - getY(next)) * (getZ(i) + getZ(next));
+            normalY += (getZ(i) - getZ(next)) * (getX(i) + getX(next));
+            normalZ += (getX(i) - getX(next)) * (getY(i) + getY(next));
+        }
+        double absX = Math.abs(normalX), absY = Math.abs(normalY), absZ = Math.abs(normalZ);
+        int u, v;
+        if (absZ >= absX && absZ >= absY) {
+            u = 0;
+            v = 1;
+        } else if (absY >= absX) {
+            u = 2;
+            v = 0;
+        } else {
+            u = 1;
+            v = 2;
+        }
+
+        int sign = 0, flipsU = 0, flipsV = 0;
+        int firstSignU = 0, firstSignV = 0, lastSignU = 0, lastSignV = 0;
+        double lastDeltaU = 0, lastDeltaV = 0;
+        for (int i = 0; i <= length; i++) {
+            int a = i % length, b = (i + 1) % length;
+            double deltaU = coordinate(b, u) - coordinate(a, u);
+            double deltaV = coordinate(b, v) - coordinate(a, v);
+            if (i > 0) {
+                double cross = lastDeltaU * deltaV - lastDeltaV * deltaU;
+                if (cross > 0.000000001) {
+                    if (sign < 0) return false;
+                    sign = 1;
+                } else if (cross < -0.000000001) {
+                    if (sign > 0) return false;
+                    sign = -1;
+                }
+            }
+            if (i < length) {
+                //a simple convex outline changes its direction at most twice per axis
+                int signU = deltaU > 0 ? 1 : (deltaU < 0 ? -1 : 0);
+                int signV = deltaV > 0 ? 1 : (deltaV < 0 ? -1 : 0);
+                if (signU != 0) {
+                    if (lastSignU != 0 && signU != lastSignU) flipsU++;
+                    if (firstSignU == 0) firstSignU = signU;
+                    lastSignU = signU;
+                }
+                if (signV != 0) {
+                    if (lastSignV != 0 && signV != lastSignV) flipsV++;
+                    if (firstSignV == 0) firstSignV = signV;
+                    lastSignV = signV;
+                }
+            }
+            if (deltaU != 0 || deltaV != 0) {
+                lastDeltaU = deltaU;
+                lastDeltaV = deltaV;
+            }
+        }
+        if (lastSignU != firstSignU) flipsU++;
+        if (lastSignV != firstSignV) flipsV++;
+        return sign != 0 && flipsU <= 2 && flipsV <= 2;
+    }
+
+    private double coordinate(int index, int axis) {
+        return axis == 0 ? getX(index) : (axis == 1 ? getY(index) : getZ(index));
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -214,4 +341,59 @@ public class Path {
     public int hashCode() {
         return Arrays.hashCode(points);
     }
+
+    /**
+     * Collects points in a growing array, building a path with n points takes linear time
+     */
+    public static class Builder {
+
+        private double[] coordinates;
+
+        private int size;
+
+        public Builder() {
+            this(8);
+        }
+
+        public Builder(int capacity) {
+            this.coordinates = new double[Math.max(capacity, 1) * 3];
+        }
+
+        public Builder add(double x, double y, double z) {
+            if (this.size * 3 == this.coordinates.length) {
+                this.coordinates = Arrays.copyOf(this.coordinates, this.coordinates.length * 2);
+            }
+            this.coordinates[this.size * 3] = x;
+            this.coordinates[this.size * 3 + 1] = y;
+            this.coordinates[this.size * 3 + 2] = z;
+            this.size++;
+            return this;
+        }
+
+        public Builder add(Point point) {
+            return add(point.x, point.y, point.z);
+        }
+
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * New points for the added coordinates, e.g. for the constructor of a Path subclass
+         */
+        public Point[] toPoints() {
+            Point[] points = new Point[this.size];
+            for (int i = 0; i < this.size; i++) {
+                points[i] = new Point(this.coordinates[i * 3], this.coordinates[i * 3 + 1], this.coordinates[i * 3 + 2]);
+            }
+            return points;
+        }
+
+        /**
+         * A packed path with exactly the added points
+         */
+        public PackedPath build() {
+            return new PackedPath(Arrays.copyOf(this.coordinates, this.size * 3));
+        }
+    }
 }
\ No newline at end of file
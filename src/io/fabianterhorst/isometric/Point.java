@@ -121,6 +121,10 @@ public class Point {
         return new Point(pX + origin.x, pY + origin.y, this.z);
     }
 
+    public Point transform(Transform transform) {
+        return transform.apply(this);
+    }
+
     /**
      * The depth of a point in the isometric plane
      */
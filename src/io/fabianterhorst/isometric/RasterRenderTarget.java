@@ -0,0 +1,153 @@
+package io.fabianterhorst.isometric;
+
+import java.util.Arrays;
+
+/**
+ * Pure Java render target that fills polygons into an int[] framebuffer of ARGB pixels.
+ *
+ * Polygons are filled with the non-zero winding rule like android.graphics.Path, a pixel is covered
+ * if its center is inside the polygon. Colors are blended source-over, there is no anti-aliasing.
+ */
+public class RasterRenderTarget implements RenderTarget {
+
+    private final int width, height;
+
+    private final int[] pixels;
+
+    private boolean blend = true;
+
+    //scanline crossings: x position and winding direction of every edge crossing the current row
+    private double[] crossings = new double[16];
+    private int[] directions = new int[16];
+
+    public RasterRenderTarget(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Width and height have to be positive");
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = new int[width * height];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * The framebuffer, row by row from the top left
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public int getPixel(int x, int y) {
+        return pixels[y * width + x];
+    }
+
+    public void clear(int color) {
+        Arrays.fill(pixels, color);
+    }
+
+    /**
+     * With blending disabled the color of a polygon replaces the pixels it covers,
+     * which is needed when the pixels are values instead of colors
+     */
+    public void setBlend(boolean blend) {
+        this.blend = blend;
+    }
+
+    @Override
+    public void fillPolygon(double[] points, int offset, int length, int color) {
+        if (length < 3) {
+            return;
+        }
+        double minY = points[offset + 1], maxY = minY;
+        for (int i = 1; i < length; i++) {
+            minY = Math.min(minY, points[offset + i * 2 + 1]);
+            maxY = Math.max(maxY, points[offset + i * 2 + 1]);
+        }
+        //rows whose pixel centers lie inside [minY, maxY]
+        int firstRow = Math.max(0, (int) Math.ceil(minY - 0.5));
+        int lastRow = Math.min(height - 1, (int) Math.floor(maxY - 0.5));
+
+        if (crossings.length < length) {
+            crossings = new double[length];
+            directions = new int[length];
+        }
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            double y = row + 0.5;
+            int count = 0;
+            for (int i = 0, j = length - 1; i < length; j = i++) {
+                double xi = points[offset + i * 2], yi = points[offset + i * 2 + 1];
+                double xj = points[offset + j * 2], yj = points[offset + j * 2 + 1];
+                int direction;
+                if (yj <= y && y < yi) {
+                    direction = 1;
+                } else if (yi <= y && y < yj) {
+                    direction = -1;
+                } else {
+                    continue;
+                }
+                double x = xj + (y - yj) * (xi - xj) / (yi - yj);
+                //insertion sort, polygons only have a few crossings per row
+                int k = count++;
+                while (k > 0 && crossings[k - 1] > x) {
+                    crossings[k] = crossings[k - 1];
+                    directions[k] = directions[k - 1];
+                    k--;
+                }
+                crossings[k] = x;
+                directions[k] = direction;
+            }
+
+            int winding = 0;
+            for (int k = 0; k < count - 1; k++) {
+                winding += directions[k];
+                if (winding != 0) {
+                    //pixels whose centers lie in [crossings[k], crossings[k + 1])
+                    int from = Math.max(0, (int) Math.ceil(crossings[k] - 0.5));
+                    int to = Math.min(width, (int) Math.ceil(crossings[k + 1] - 0.5));
+                    fillSpan(row * width, from, to, color);
+                }
+            }
+        }
+    }
+
+    private void fillSpan(int rowOffset, int from, int to, int color) {
+        int alpha = color >>> 24;
+        if (!blend || alpha == 255) {
+            if (from < to) {
+                Arrays.fill(pixels, rowOffset + from, rowOffset + to, color);
+            }
+            return;
+        }
+        if (alpha == 0) {
+            return;
+        }
+        for (int x = from; x < to; x++) {
+            pixels[rowOffset + x] = blend(pixels[rowOffset + x], color, alpha);
+        }
+    }
+
+    /**
+     * Source-over blending of non premultiplied colors
+     */
+    private static int blend(int destination, int source, int sourceAlpha) {
+        int destinationAlpha = destination >>> 24;
+        int inverse = 255 - sourceAlpha;
+        //alpha of the result scaled by 255
+        int alpha = sourceAlpha * 255 + destinationAlpha * inverse;
+        if (alpha == 0) {
+            return 0;
+        }
+        int r = (((source >> 16) & 0xFF) * sourceAlpha * 255 + ((destination >> 16) & 0xFF) * destinationAlpha * inverse) / alpha;
+        int g = (((source >> 8) & 0xFF) * sourceAlpha * 255 + ((destination >> 8) & 0xFF) * destinationAlpha * inverse) / alpha;
+        int b = ((source & 0xFF) * sourceAlpha * 255 + (destination & 0xFF) * destinationAlpha * inverse) / alpha;
+        return ((alpha + 127) / 255) << 24 | r << 16 | g << 8 | b;
+    }
+}
@@ -0,0 +1,18 @@
+package io.fabianterhorst.isometric;
+
+/**
+ * Something the items of an Isometric can be drawn into without depending on android.graphics,
+ * e.g. a RasterRenderTarget for rendering on a server or benchmarking on a plain JVM.
+ */
+public interface RenderTarget {
+
+    /**
+     * Fill a polygon
+     *
+     * @param points view coordinates as packed x, y pairs
+     * @param offset index of the first x coordinate in points
+     * @param length number of points of the polygon
+     * @param color  color in packed ARGB format
+     */
+    void fillPolygon(double[] points, int offset, int length, int color);
+}
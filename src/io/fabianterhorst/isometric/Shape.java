@@ -17,6 +17,9 @@ public class Shape {
         this.paths = paths;
     }
 
+    /**
+     * Copies all paths, use a Builder to create shapes with many paths
+     */
     public void push(Path path) {
         if (paths == null) {
             paths = new Path[0];
@@ -123,6 +126,18 @@ public class Shape {
         return new Shape(paths);
     }
 
+    /**
+     * Apply a composed transform to every path, each point is transformed once however many steps
+     * the transform has
+     */
+    public Shape transform(Transform transform) {
+        Path[] paths = new Path[this.paths.length];
+        for (int i = 0; i < this.paths.length; i++) {
+            paths[i] = this.paths[i].transform(transform);
+        }
+        return new Shape(paths);
+    }
+
     public void scalePaths(Point origin, double dx, double dy, double dz) {
         for (int i = 0, length = paths.length; i < length; i++) {
             paths[i] = paths[i].scale(origin, dx, dy, dz);
@@ -193,7 +208,7 @@ public class Shape {
     public static Shape extrude(Shape shape, Path path, double height) {
         Path topPath = path.translate(0, 0, height);
         int i;
-        int length = path.points.length;
+        int length = path.size();
 
         Path[] paths = new Path[length + 2];
 
@@ -201,7 +216,20 @@ public class Shape {
         paths[0] = path.reverse();
         paths[1] = topPath;
 
-        /* Push each side face */
+        /* Push each side face, packed paths get packed side faces */
+        if (path instanceof PackedPath) {
+            for (i = 0; i < length; i++) {
+                int next = (i + 1) % length;
+                paths[i + 2] = new PackedPath(new double[]{
+                        topPath.getX(i), topPath.getY(i), topPath.getZ(i),
+                        path.getX(i), path.getY(i), path.getZ(i),
+                        path.getX(next), path.getY(next), path.getZ(next),
+                        topPath.getX(next), topPath.getY(next), topPath.getZ(next)
+                });
+            }
+            shape.setPaths(paths);
+            return shape;
+        }
         Point[] points;
         for (i = 0; i < length; i++) {
             points = new Point[4];
@@ -227,4 +255,59 @@ public class Shape {
     public int hashCode() {
         return Arrays.hashCode(paths);
     }
+
+    /**
+     * Collects paths in a growing array, building a shape with n paths takes linear time.
+     * Unlike push(Path[]) the paths are always added at the end.
+     */
+    public static class Builder {
+
+        private Path[] paths;
+
+        private int size;
+
+        public Builder() {
+            this(8);
+        }
+
+        public Builder(int capacity) {
+            this.paths = new Path[Math.max(capacity, 1)];
+        }
+
+        public Builder add(Path path) {
+            if (this.size == this.paths.length) {
+                this.paths = Arrays.copyOf(this.paths, this.paths.length * 2);
+            }
+            this.paths[this.size++] = path;
+            return this;
+        }
+
+        public Builder add(Path[] paths) {
+            if (this.size + paths.length > this.paths.length) {
+                this.paths = Arrays.copyOf(this.paths, Math.max(this.paths.length * 2, this.size + paths.length));
+            }
+            System.arraycopy(paths, 0, this.paths, this.size, paths.length);
+            this.size += paths.length;
+            return this;
+        }
+
+        public Builder add(Shape shape) {
+            return add(shape.getPaths());
+        }
+
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * The added paths in an array of exactly their number
+         */
+        public Path[] toPaths() {
+            return Arrays.copyOf(this.paths, this.size);
+        }
+
+        public Shape build() {
+            return new Shape(toPaths());
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,267 @@
+package io.fabianterhorst.isometric;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Uniform screen-space grid over the projected bounding boxes of a list of items.
+ *
+ * Every item is registered in each cell its box touches, so two items can only overlap
+ * if they share at least one cell. Cells are stored in a flat (CSR) layout: the indices of
+ * the items in cell c are cellItems[cellStart[c]] .. cellItems[cellStart[c + 1] - 1],
+ * in ascending item order.
+ */
+class SpatialGrid {
+
+    //the whole grid has at most this many cells times the item count, keeps the grid memory linear in the item count.
+    //a single large item can still cover more cells than that
+    private static final int CELLS_PER_ITEM_BUDGET = 4;
+
+    private double gridX, gridY, cellSize;
+    private int columns, rows;
+
+    private int[] cellStart = new int[0];
+    private int[] cellItems = new int[0];
+
+    private int[] minColumn = new int[0], minRow = new int[0], maxColumn = new int[0], maxRow = new int[0];
+
+    private double[] minX = new double[0], minY = new double[0], maxX = new double[0], maxY = new double[0];
+
+    private int size;
+
+    /**
+     * Rebuild the grid from the bounding boxes of the given items. Item i of the list is
+     * referenced by index i in all results of this grid.
+     */
+    public void build(List<Isometric.Item> items) {
+        int length = items.size();
+        ensureItemCapacity(length);
+        this.size = length;
+
+        if (length == 0) {
+            this.columns = this.rows = 0;
+            this.cellStart = new int[1];
+            return;
+        }
+
+        double gridMinX = Double.POSITIVE_INFINITY, gridMinY = Double.POSITIVE_INFINITY;
+        double gridMaxX = Double.NEGATIVE_INFINITY, gridMaxY = Double.NEGATIVE_INFINITY;
+        double totalWidth = 0, totalHeight = 0;
+        Isometric.Item item;
+        for (int i = 0; i < length; i++) {
+            item = items.get(i);
+            minX[i] = item.minX;
+            minY[i] = item.minY;
+            maxX[i] = item.maxX;
+            maxY[i] = item.maxY;
+            gridMinX = Math.min(gridMinX, item.minX);
+            gridMinY = Math.min(gridMinY, item.minY);
+            gridMaxX = Math.max(gridMaxX, item.maxX);
+            gridMaxY = Math.max(gridMaxY, item.maxY);
+            totalWidth += item.maxX - item.minX;
+            totalHeight += item.maxY - item.minY;
+        }
+
+        double spanX = gridMaxX - gridMinX, spanY = gridMaxY - gridMinY;
+        double cellSize = cellSize(totalWidth, totalHeight, spanX, spanY, length);
+
+        this.gridX = gridMinX;
+        this.gridY = gridMinY;
+        this.cellSize = cellSize;
+        this.columns = (int) (spanX / cellSize) + 1;
+        this.rows = (int) (spanY / cellSize) + 1;
+
+        int cells = this.columns * this.rows;
+        int[] cellCount = new int[cells + 1];
+        for (int i = 0; i < length; i++) {
+            minColumn[i] = column(minX[i]);
+            maxColumn[i] = column(maxX[i]);
+            minRow[i] = row(minY[i]);
+            maxRow[i] = row(maxY[i]);
+            for (int r = minRow[i]; r <= maxRow[i]; r++) {
+                for (int c = minColumn[i]; c <= maxColumn[i]; c++) {
+                    cellCount[r * columns + c + 1]++;
+                }
+            }
+        }
+        for (int c = 0; c < cells; c++) {
+            cellCount[c + 1] += cellCount[c];
+        }
+        this.cellStart = cellCount;
+
+        int[] cellItems = this.cellItems.length >= cellCount[cells] ? this.cellItems : new int[cellCount[cells]];
+        int[] fill = Arrays.copyOf(cellCount, cells);
+        for (int i = 0; i < length; i++) {
+            for (int r = minRow[i]; r <= maxRow[i]; r++) {
+                for (int c = minColumn[i]; c <= maxColumn[i]; c++) {
+                    cellItems[fill[r * columns + c]++] = i;
+                }
+            }
+        }
+        this.cellItems = cellItems;
+    }
+
+    /**
+     * Collect every pair of items whose bounding boxes overlap (borders included).
+     * Each pair is reported once as (i, j) with i > j, flattened into the returned array.
+     *
+     * @param count receives the number of pairs in count[0]
+     */
+    public int[] findOverlappingPairs(int[] count) {
+        int[] pairs = new int[Math.max(16, size * 2)];
+        int pairCount = 0;
+        int a, b;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                int cell = r * columns + c;
+                for (int k = cellStart[cell], end = cellStart[cell + 1]; k < end; k++) {
+                    b = cellItems[k];
+                    for (int l = cellStart[cell]; l < k; l++) {
+                        a = cellItems[l];
+                        //only report a pair in the first cell both items share
+                        if (Math.max(minColumn[a], minColumn[b]) != c || Math.max(minRow[a], minRow[b]) != r) {
+                            continue;
+                        }
+                        if (!overlaps(a, b)) {
+                            continue;
+                        }
+                        if (pairCount * 2 + 2 > pairs.length) {
+                            pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                        }
+                        pairs[pairCount * 2] = b;
+                        pairs[pairCount * 2 + 1] = a;
+                        pairCount++;
+                    }
+                }
+            }
+        }
+        count[0] = pairCount;
+        return pairs;
+    }
+
+    /**
+     * Collect the items whose bounding boxes overlap the box of the given item (borders included),
+     * each reported once in ascending order of the cells.
+     *
+     * @param buffer array to write the indices into, grown if needed
+     * @param count  receives the number of indices in count[0]
+     */
+    public int[] findOverlapping(int index, int[] buffer, int[] count) {
+        int found = 0;
+        for (int r = minRow[index]; r <= maxRow[index]; r++) {
+            for (int c = minColumn[index]; c <= maxColumn[index]; c++) {
+                int cell = r * columns + c;
+                for (int k = cellStart[cell], end = cellStart[cell + 1]; k < end; k++) {
+                    int other = cellItems[k];
+                    if (other == index) {
+                        continue;
+                    }
+                    //only report an item in the first cell both items share
+                    if (Math.max(minColumn[index], minColumn[other]) != c || Math.max(minRow[index], minRow[other]) != r) {
+                        continue;
+                    }
+                    if (!overlaps(index, other)) {
+                        continue;
+                    }
+                    if (found == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, Math.max(16, buffer.length * 2));
+                    }
+                    buffer[found++] = other;
+                }
+            }
+        }
+        count[0] = found;
+        return buffer;
+    }
+
+    /**
+     * Collect the items whose bounding boxes, grown by the radius, contain the given point
+     * (borders included), each reported once in ascending order of the cells.
+     *
+     * @param buffer array to write the indices into, grown if needed
+     * @param count  receives the number of indices in count[0]
+     */
+    public int[] findContaining(double x, double y, double radius, int[] buffer, int[] count) {
+        return findOverlapping(x - radius, y - radius, x + radius, y + radius, buffer, count);
+    }
+
+    /**
+     * Collect the items whose bounding boxes overlap the given box (borders included),
+     * each reported once in ascending order of the cells.
+     *
+     * @param buffer array to write the indices into, grown if needed
+     * @param count  receives the number of indices in count[0]
+     */
+    public int[] findOverlapping(double minX, double minY, double maxX, double maxY, int[] buffer, int[] count) {
+        int found = 0;
+        if (size > 0) {
+            int firstColumn = column(minX), firstRow = row(minY);
+            for (int r = firstRow, lastRow = row(maxY); r <= lastRow; r++) {
+                for (int c = firstColumn, lastColumn = column(maxX); c <= lastColumn; c++) {
+                    int cell = r * columns + c;
+                    for (int k = cellStart[cell], end = cellStart[cell + 1]; k < end; k++) {
+                        int item = cellItems[k];
+                        //only report an item in the first cell it shares with the searched box
+                        if (Math.max(minColumn[item], firstColumn) != c || Math.max(minRow[item], firstRow) != r) {
+                            continue;
+                        }
+                        if (maxX < this.minX[item] || minX > this.maxX[item] || maxY < this.minY[item] || minY > this.maxY[item]) {
+                            continue;
+                        }
+                        if (found == buffer.length) {
+                            buffer = Arrays.copyOf(buffer, Math.max(16, buffer.length * 2));
+                        }
+                        buffer[found++] = item;
+                    }
+                }
+            }
+        }
+        count[0] = found;
+        return buffer;
+    }
+
+    /**
+     * Cell size for items with the given summed box sizes in a grid spanning spanX * spanY
+     */
+    static double cellSize(double totalWidth, double totalHeight, double spanX, double spanY, int length) {
+        //an average item should cover about one cell
+        double cellSize = Math.max(totalWidth, totalHeight) / length;
+        if (!(cellSize > 0)) {
+            cellSize = Math.max(Math.max(spanX, spanY), 1);
+        }
+        //grow the cells until the whole grid fits into the cell budget
+        while ((spanX / cellSize + 1) * (spanY / cellSize + 1) > (double) CELLS_PER_ITEM_BUDGET * length) {
+            cellSize *= 2;
+        }
+        return cellSize;
+    }
+
+    private boolean overlaps(int a, int b) {
+        return ((minX[a] <= minX[b] && minX[b] <= maxX[a]) || (minX[b] <= minX[a] && minX[a] <= maxX[b])) &&
+                ((minY[a] <= minY[b] && minY[b] <= maxY[a]) || (minY[b] <= minY[a] && minY[a] <= maxY[b]));
+    }
+
+    private int column(double x) {
+        int column = (int) ((x - gridX) / cellSize);
+        return column < 0 ? 0 : (column >= columns ? columns - 1 : column);
+    }
+
+    private int row(double y) {
+        int row = (int) ((y - gridY) / cellSize);
+        return row < 0 ? 0 : (row >= rows ? rows - 1 : row);
+    }
+
+    private void ensureItemCapacity(int length) {
+        if (minX.length >= length) {
+            return;
+        }
+        minX = new double[length];
+        minY = new double[length];
+        maxX = new double[length];
+        maxY = new double[length];
+        minColumn = new int[length];
+        minRow = new int[length];
+        maxColumn = new int[length];
+        maxRow = new int[length];
+    }
+}
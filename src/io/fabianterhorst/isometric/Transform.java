@@ -0,0 +1,137 @@
+package io.fabianterhorst.isometric;
+
+/**
+ * Affine 3D transformation as a 3x4 matrix: x' = m00 * x + m01 * y + m02 * z + m03, same for y' and z'.
+ *
+ * Transforms are immutable. translate, scale and rotateX/Y/Z return a new transform that applies this one
+ * first and then the new step, so a chain of steps is composed once and applied to a path or shape in a
+ * single pass with Path.transform or Shape.transform. The trigonometry of a rotation is only calculated
+ * when it is composed. The result equals applying the steps one by one up to rounding.
+ */
+public class Transform {
+
+    public static final Transform IDENTITY = new Transform();
+
+    final double m00, m01, m02, m03;
+    final double m10, m11, m12, m13;
+    final double m20, m21, m22, m23;
+
+    public Transform() {
+        this(1, 0, 0, 0,
+                0, 1, 0, 0,
+                0, 0, 1, 0);
+    }
+
+    public Transform(double m00, double m01, double m02, double m03,
+                     double m10, double m11, double m12, double m13,
+                     double m20, double m21, double m22, double m23) {
+        this.m00 = m00;
+        this.m01 = m01;
+        this.m02 = m02;
+        this.m03 = m03;
+        this.m10 = m10;
+        this.m11 = m11;
+        this.m12 = m12;
+        this.m13 = m13;
+        this.m20 = m20;
+        this.m21 = m21;
+        this.m22 = m22;
+        this.m23 = m23;
+    }
+
+    /**
+     * Apply this transform and then the other one
+     */
+    public Transform then(Transform other) {
+        return new Transform(
+                other.m00 * m00 + other.m01 * m10 + other.m02 * m20,
+                other.m00 * m01 + other.m01 * m11 + other.m02 * m21,
+                other.m00 * m02 + other.m01 * m12 + other.m02 * m22,
+                other.m00 * m03 + other.m01 * m13 + other.m02 * m23 + other.m03,
+                other.m10 * m00 + other.m11 * m10 + other.m12 * m20,
+                other.m10 * m01 + other.m11 * m11 + other.m12 * m21,
+                other.m10 * m02 + other.m11 * m12 + other.m12 * m22,
+                other.m10 * m03 + other.m11 * m13 + other.m12 * m23 + other.m13,
+                other.m20 * m00 + other.m21 * m10 + other.m22 * m20,
+                other.m20 * m01 + other.m21 * m11 + other.m22 * m21,
+                other.m20 * m02 + other.m21 * m12 + other.m22 * m22,
+                other.m20 * m03 + other.m21 * m13 + other.m22 * m23 + other.m23);
+    }
+
+    public Transform translate(double dx, double dy, double dz) {
+        return then(new Transform(
+                1, 0, 0, dx,
+                0, 1, 0, dy,
+                0, 0, 1, dz));
+    }
+
+    /**
+     * Scale about a given origin, like Point.scale
+     */
+    public Transform scale(Point origin, double dx, double dy, double dz) {
+        return then(new Transform(
+                dx, 0, 0, origin.x - origin.x * dx,
+                0, dy, 0, origin.y - origin.y * dy,
+                0, 0, dz, origin.z - origin.z * dz));
+    }
+
+    public Transform scale(Point origin, double dx, double dy) {
+        return scale(origin, dx, dy, 1);
+    }
+
+    public Transform scale(Point origin, double dx) {
+        return scale(origin, dx, dx, dx);
+    }
+
+    /**
+     * Rotate about origin on the X axis, like Point.rotateX
+     */
+    public Transform rotateX(Point origin, double angle) {
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        return then(new Transform(
+                1, 0, 0, 0,
+                0, cos, sin, origin.y - origin.y * cos - origin.z * sin,
+                0, -sin, cos, origin.z + origin.y * sin - origin.z * cos));
+    }
+
+    /**
+     * Rotate about origin on the Y axis, like Point.rotateY
+     */
+    public Transform rotateY(Point origin, double angle) {
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        return then(new Transform(
+                cos, 0, -sin, origin.x - origin.x * cos + origin.z * sin,
+                0, 1, 0, 0,
+                sin, 0, cos, origin.z - origin.x * sin - origin.z * cos));
+    }
+
+    /**
+     * Rotate about origin on the Z axis, like Point.rotateZ
+     */
+    public Transform rotateZ(Point origin, double angle) {
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        return then(new Transform(
+                cos, -sin, 0, origin.x - origin.x * cos + origin.y * sin,
+                sin, cos, 0, origin.y - origin.x * sin - origin.y * cos,
+                0, 0, 1, 0));
+    }
+
+    public Point apply(Point point) {
+        return new Point(applyX(point.x, point.y, point.z), applyY(point.x, point.y, point.z), applyZ(point.x, point.y, point.z));
+    }
+
+    double applyX(double x, double y, double z) {
+        return m00 * x + m01 * y + m02 * z + m03;
+    }
+
+    double applyY(double x, double y, double z) {
+        return m10 * x + m11 * y + m12 * z + m13;
+    }
+
+    double applyZ(double x, double y, double z) {
+        return m20 * x + m21 * y + m22 * z + m23;
+    }
+}
@@ -1,7 +1,5 @@
 package io.fabianterhorst.isometric;
 
-import androidx.annotation.NonNull;
-
 /**
  * Created by fabianterhorst on 31.03.17.
  */
@@ -28,12 +26,10 @@ public class Vector {
         return k;
     }
 
-    @NonNull
     public static Vector fromTwoPoints(Point p1, Point p2) {
         return new Vector(p2.x - p1.x, p2.y - p1.y, p2.z - p1.z);
     }
 
-    @NonNull
     public static Vector crossProduct(Vector v1, Vector v2) {
         double i = v1.j * v2.k - v2.j * v1.k;
         double j = -1 * (v1.i * v2.k - v2.i * v1.k);
@@ -1,5 +1,7 @@
 package io.fabianterhorst.isometric.paths;
 
+import io.fabianterhorst.isometric.Curved;
+import io.fabianterhorst.isometric.PackedPath;
 import io.fabianterhorst.isometric.Path;
 import io.fabianterhorst.isometric.Point;
 
@@ -7,7 +9,11 @@ import io.fabianterhorst.isometric.Point;
  * Created by fabianterhorst on 01.04.17.
  */
 
-public class Circle extends Path {
+public class Circle extends Path implements Curved {
+
+    private final Point origin;
+
+    private final double radius, vertices;
 
     @Deprecated
     public Circle(Point origin, double radius) {
@@ -15,12 +21,42 @@ public class Circle extends Path {
     }
 
     public Circle(Point origin, double radius, double vertices) {
-        super();
+        super(build(origin, radius, vertices).toPoints());
+        this.origin = origin;
+        this.radius = radius;
+        this.vertices = vertices;
+    }
+
+    @Override
+    public double getCurveRadius() {
+        return radius;
+    }
+
+    @Override
+    public int getMaxVertices() {
+        return vertices > 0 ? (int) Math.ceil(vertices) : 0;
+    }
+
+    @Override
+    public Path[] tessellate(int vertices) {
+        return new Path[]{packed(origin, radius, vertices)};
+    }
+
+    /**
+     * The same circle as a packed path, without a Point per vertex
+     */
+    public static PackedPath packed(Point origin, double radius, double vertices) {
+        return build(origin, radius, vertices).build();
+    }
+
+    private static Path.Builder build(Point origin, double radius, double vertices) {
+        Path.Builder builder = new Path.Builder((int) vertices + 1);
         for (int i = 0; i < vertices; i++) {
-            push(new Point(
+            builder.add(
                     (radius * Math.cos(i * 2 * Math.PI / vertices)) + origin.getX(),
                     (radius * Math.sin(i * 2 * Math.PI / vertices)) + origin.getY(),
-                    origin.getZ()));
+                    origin.getZ());
         }
+        return builder;
     }
 }
\ No newline at end of file
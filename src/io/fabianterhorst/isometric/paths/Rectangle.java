@@ -10,10 +10,11 @@ import io.fabianterhorst.isometric.Point;
 public class Rectangle extends Path {
 
     public Rectangle(Point origin, int width, int height) {
-        super();
-        push(origin);
-        push(new Point(origin.getX() + width, origin.getY(), origin.getZ()));
-        push(new Point(origin.getX() + width, origin.getY() + height, origin.getZ()));
-        push(new Point(origin.getX(), origin.getY() + height, origin.getZ()));
+        super(new Path.Builder(4)
+                .add(origin)
+                .add(origin.getX() + width, origin.getY(), origin.getZ())
+                .add(origin.getX() + width, origin.getY() + height, origin.getZ())
+                .add(origin.getX(), origin.getY() + height, origin.getZ())
+                .toPoints());
     }
 }
\ No newline at end of file
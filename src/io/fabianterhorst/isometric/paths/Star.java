@@ -10,14 +10,19 @@ import io.fabianterhorst.isometric.Point;
 public class Star extends Path {
 
     public Star(Point origin, double outerRadius, double innerRadius, int points) {
-        super();
+        super(build(origin, outerRadius, innerRadius, points).toPoints());
+    }
+
+    private static Path.Builder build(Point origin, double outerRadius, double innerRadius, int points) {
+        Path.Builder builder = new Path.Builder(points * 2);
         double r;
         for (int i = 0; i < points * 2; i++) {
             r = (i % 2 == 0) ? outerRadius : innerRadius;
-            push(new Point(
+            builder.add(
                     (r * Math.cos(i * Math.PI / points)) + origin.getX(),
                     (r * Math.sin(i * Math.PI / points)) + origin.getY(),
-                    origin.getZ()));
+                    origin.getZ());
         }
+        return builder;
     }
 }
\ No newline at end of file
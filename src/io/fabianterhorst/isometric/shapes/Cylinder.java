@@ -1,5 +1,7 @@
 package io.fabianterhorst.isometric.shapes;
 
+import io.fabianterhorst.isometric.Curved;
+import io.fabianterhorst.isometric.Path;
 import io.fabianterhorst.isometric.Point;
 import io.fabianterhorst.isometric.Shape;
 import io.fabianterhorst.isometric.paths.Circle;
@@ -8,7 +10,11 @@ import io.fabianterhorst.isometric.paths.Circle;
  * Created by fabianterhorst on 01.04.17.
  */
 
-public class Cylinder extends Shape {
+public class Cylinder extends Shape implements Curved {
+
+    private final Point origin;
+
+    private final double radius, vertices, height;
 
     public Cylinder(Point origin, double vertices, double height) {
         this(origin, 1, vertices, height);
@@ -16,7 +22,25 @@ public class Cylinder extends Shape {
 
     public Cylinder(Point origin, double radius, double vertices, double height) {
         super();
-        Circle circle = new Circle(origin, radius, vertices);
-        extrude(this, circle, height);
+        this.origin = origin;
+        this.radius = radius;
+        this.vertices = vertices;
+        this.height = height;
+        extrude(this, Circle.packed(origin, radius, vertices), height);
+    }
+
+    @Override
+    public double getCurveRadius() {
+        return radius;
+    }
+
+    @Override
+    public int getMaxVertices() {
+        return vertices > 0 ? (int) Math.ceil(vertices) : 0;
+    }
+
+    @Override
+    public Path[] tessellate(int vertices) {
+        return extrude(new Shape(), Circle.packed(origin, radius, vertices), height).getPaths();
     }
-}
\ No newline at end of file
+}
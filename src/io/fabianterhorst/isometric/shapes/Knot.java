@@ -1,5 +1,6 @@
 package io.fabianterhorst.isometric.shapes;
 
+import io.fabianterhorst.isometric.PackedPath;
 import io.fabianterhorst.isometric.Path;
 import io.fabianterhorst.isometric.Point;
 import io.fabianterhorst.isometric.Shape;
@@ -9,17 +10,23 @@ import io.fabianterhorst.isometric.Shape;
  */
 
 //Todo: needs an depth fix
-//Todo: optimize push
 public class Knot extends Shape {
 
     public Knot(Point origin) {
-        push(new Prism(Point.ORIGIN, 5, 1, 1).getPaths());
-        push(new Prism(new Point(4, 1, 0), 1, 4, 1).getPaths());
-        push(new Prism(new Point(4, 4, -2), 1, 1, 3).getPaths());
-        push(new Path(new Point[]{new Point(0, 0, 2), new Point(0, 0, 1), new Point(1, 0, 1), new Point(1, 0, 2)}));
-        push(new Path(new Point[]{new Point(0, 0, 2), new Point(0, 1, 2), new Point(0, 1, 1), new Point(0, 0, 1)}));
-        scalePaths(Point.ORIGIN, 1.0 / 5.0);
-        translatePaths(-0.1, 0.15, 0.4);
-        translatePaths(origin.getX(), origin.getY(), origin.getZ());
+        //same face order as pushing the prisms one after the other, push(Path[]) prepends
+        Path[] paths = new Shape.Builder(20)
+                .add(new Prism(new Point(4, 4, -2), 1, 1, 3))
+                .add(new Prism(new Point(4, 1, 0), 1, 4, 1))
+                .add(new Prism(Point.ORIGIN, 5, 1, 1))
+                .add(new PackedPath(new double[]{0, 0, 2, 0, 0, 1, 1, 0, 1, 1, 0, 2}))
+                .add(new PackedPath(new double[]{0, 0, 2, 0, 1, 2, 0, 1, 1, 0, 0, 1}))
+                .toPaths();
+        //scale once into new paths, then move them in place
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = paths[i].scale(Point.ORIGIN, 1.0 / 5.0)
+                    .translatePoints(-0.1, 0.15, 0.4)
+                    .translatePoints(origin.getX(), origin.getY(), origin.getZ());
+        }
+        setPaths(paths);
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package io.fabianterhorst.isometric.shapes;
 
+import io.fabianterhorst.isometric.PackedPath;
 import io.fabianterhorst.isometric.Path;
 import io.fabianterhorst.isometric.Point;
 import io.fabianterhorst.isometric.Shape;
@@ -13,8 +14,8 @@ public class Octahedron extends Shape {
     public Octahedron(Point origin) {
         super();
         Point center = origin.translate(0.5, 0.5, 0.5);
-        Path upperTriangle = new Path(new Point[]{origin.translate(0, 0, 0.5), origin.translate(0.5, 0.5, 1), origin.translate(0, 1, 0.5)});
-        Path lowerTriangle = new Path(new Point[]{origin.translate(0, 0, 0.5), origin.translate(0, 1, 0.5), origin.translate(0.5, 0.5, 0)});
+        Path upperTriangle = new PackedPath(new Point[]{origin.translate(0, 0, 0.5), origin.translate(0.5, 0.5, 1), origin.translate(0, 1, 0.5)});
+        Path lowerTriangle = new PackedPath(new Point[]{origin.translate(0, 0, 0.5), origin.translate(0, 1, 0.5), origin.translate(0.5, 0.5, 0)});
         Path[] paths = new Path[8];
         int count = 0;
         for (int i = 0; i < 4; i++) {
@@ -1,5 +1,6 @@
 package io.fabianterhorst.isometric.shapes;
 
+import io.fabianterhorst.isometric.PackedPath;
 import io.fabianterhorst.isometric.Path;
 import io.fabianterhorst.isometric.Point;
 import io.fabianterhorst.isometric.Shape;
@@ -18,13 +19,14 @@ public class Prism extends Shape {
         super();
 
         Path[] paths = new Path[6];
+        double x = origin.getX(), y = origin.getY(), z = origin.getZ();
 
         /* Squares parallel to the x-axis */
-        Path face1 = new Path(new Point[]{
-                origin,
-                new Point(origin.getX() + dx, origin.getY(), origin.getZ()),
-                new Point(origin.getX() + dx, origin.getY(), origin.getZ() + dz),
-                new Point(origin.getX(), origin.getY(), origin.getZ() + dz)
+        PackedPath face1 = new PackedPath(new double[]{
+                x, y, z,
+                x + dx, y, z,
+                x + dx, y, z + dz,
+                x, y, z + dz
         });
 
         /* Push this face and its opposite */
@@ -32,21 +34,21 @@ public class Prism extends Shape {
         paths[1] = face1.reverse().translatePoints(0, dy, 0);
 
         /* Square parallel to the y-axis */
-        Path face2 = new Path(new Point[]{
-                origin,
-                new Point(origin.getX(), origin.getY(), origin.getZ() + dz),
-                new Point(origin.getX(), origin.getY() + dy, origin.getZ() + dz),
-                new Point(origin.getX(), origin.getY() + dy, origin.getZ())
+        PackedPath face2 = new PackedPath(new double[]{
+                x, y, z,
+                x, y, z + dz,
+                x, y + dy, z + dz,
+                x, y + dy, z
         });
         paths[2] = face2;
         paths[3] = face2.reverse().translatePoints(dx, 0, 0);
 
         /* Square parallel to the xy-plane */
-        Path face3 = new Path(new Point[]{
-                origin,
-                new Point(origin.getX() + dx, origin.getY(), origin.getZ()),
-                new Point(origin.getX() + dx, origin.getY() + dy, origin.getZ()),
-                new Point(origin.getX(), origin.getY() + dy, origin.getZ())
+        PackedPath face3 = new PackedPath(new double[]{
+                x, y, z,
+                x + dx, y, z,
+                x + dx, y + dy, z,
+                x, y + dy, z
         });
         /* This surface is oriented backwards, so we need to reverse the points */
         paths[4] = face3.reverse();
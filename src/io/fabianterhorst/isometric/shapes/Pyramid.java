@@ -1,5 +1,6 @@
 package io.fabianterhorst.isometric.shapes;
 
+import io.fabianterhorst.isometric.PackedPath;
 import io.fabianterhorst.isometric.Path;
 import io.fabianterhorst.isometric.Point;
 import io.fabianterhorst.isometric.Shape;
@@ -20,20 +21,21 @@ public class Pyramid extends Shape {
         Path[] paths = new Path[4];
 
         /* Path parallel to the x-axis */
-        Path face1 = new Path(new Point[]{
-                origin,
-                new Point(origin.getX() + dx, origin.getY(), origin.getZ()),
-                new Point(origin.getX() + dx / 2.0, origin.getY() + dy / 2.0, origin.getZ() + dz)
+        double x = origin.getX(), y = origin.getY(), z = origin.getZ();
+        Path face1 = new PackedPath(new double[]{
+                x, y, z,
+                x + dx, y, z,
+                x + dx / 2.0, y + dy / 2.0, z + dz
         });
         /* Push the face, and its opposite face, by rotating around the Z-axis */
         paths[0] = face1;
         paths[1] = face1.rotateZ(origin.translate(dx / 2.0, dy / 2.0, 0), Math.PI);
 
         /* Path parallel to the y-axis */
-        Path face2 = new Path(new Point[]{
-                origin,
-                new Point(origin.getX() + dx / 2, origin.getY() + dy / 2, origin.getZ() + dz),
-                new Point(origin.getX(), origin.getY() + dy, origin.getZ())
+        Path face2 = new PackedPath(new double[]{
+                x, y, z,
+                x + dx / 2, y + dy / 2, z + dz,
+                x, y + dy, z
         });
         paths[2] = face2;
         paths[3] = face2.rotateZ(origin.translate(dx / 2.0, dy / 2.0, 0), Math.PI);
@@ -1,5 +1,6 @@
 package io.fabianterhorst.isometric.shapes;
 
+import io.fabianterhorst.isometric.PackedPath;
 import io.fabianterhorst.isometric.Path;
 import io.fabianterhorst.isometric.Point;
 import io.fabianterhorst.isometric.Shape;
@@ -12,21 +13,38 @@ public class Stairs extends Shape {
 
     public Stairs(Point origin, double stepCount) {
         Path[] paths = new Path[(int) stepCount * 2 + 2];
-        Path zigzag = new Path();
-        Point[] points = new Point[(int) stepCount * 2 + 2];
-        points[0] = origin;
+        double x = origin.getX(), y = origin.getY(), z = origin.getZ();
+        double step = 1 / stepCount;
+        double[] zigzag = new double[((int) stepCount * 2 + 2) * 3];
+        zigzag[0] = x;
+        zigzag[1] = y;
+        zigzag[2] = z;
         int i, count = 1;
         for (i = 0; i < stepCount; i++) {
-            Point stepCorner = origin.translate(0, i / stepCount, (i + 1) / stepCount);
-            paths[count - 1] = new Path(new Point[]{stepCorner, stepCorner.translate(0, 0, -1 / stepCount), stepCorner.translate(1, 0, -1 / stepCount), stepCorner.translate(1, 0, 0)});
-            points[count++] = stepCorner;
-            paths[count - 1] = new Path(new Point[]{stepCorner, stepCorner.translate(1, 0, 0), stepCorner.translate(1, 1 / stepCount, 0), stepCorner.translate(0, 1 / stepCount, 0)});
-            points[count++] = stepCorner.translate(0, 1 / stepCount, 0);
+            double cornerX = x, cornerY = y + i / stepCount, cornerZ = z + (i + 1) / stepCount;
+            paths[count - 1] = new PackedPath(new double[]{
+                    cornerX, cornerY, cornerZ,
+                    cornerX, cornerY, cornerZ - step,
+                    cornerX + 1, cornerY, cornerZ - step,
+                    cornerX + 1, cornerY, cornerZ});
+            setPoint(zigzag, count++, cornerX, cornerY, cornerZ);
+            paths[count - 1] = new PackedPath(new double[]{
+                    cornerX, cornerY, cornerZ,
+                    cornerX + 1, cornerY, cornerZ,
+                    cornerX + 1, cornerY + step, cornerZ,
+                    cornerX, cornerY + step, cornerZ});
+            setPoint(zigzag, count++, cornerX, cornerY + step, cornerZ);
         }
-        points[count] = origin.translate(0, 1, 0);
-        zigzag.setPoints(points);
-        paths[count++ -1] = zigzag;
-        paths[count -1] = zigzag.reverse().translatePoints(1, 0, 0);
+        setPoint(zigzag, count, x, y + 1, z);
+        PackedPath zigzagPath = new PackedPath(zigzag);
+        paths[count++ -1] = zigzagPath;
+        paths[count -1] = zigzagPath.reverse().translatePoints(1, 0, 0);
         setPaths(paths);
     }
-}
\ No newline at end of file
+
+    private static void setPoint(double[] coordinates, int index, double x, double y, double z) {
+        coordinates[index * 3] = x;
+        coordinates[index * 3 + 1] = y;
+        coordinates[index * 3 + 2] = z;
+    }
+}
@@ -0,0 +1,369 @@
+package io.fabianterhorst.isometric.shapes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.fabianterhorst.isometric.Color;
+import io.fabianterhorst.isometric.Isometric;
+import io.fabianterhorst.isometric.PackedPath;
+import io.fabianterhorst.isometric.Path;
+import io.fabianterhorst.isometric.Point;
+
+/**
+ * A world of unit cubes, like a grid of Prism(origin, 1, 1, 1) shapes.
+ *
+ * Only the faces of a cube that do not touch another cube are added to the Isometric.
+ * Blocks are stored in chunks of 16x16x16, every chunk keeps a palette of its colors and
+ * one small index per block. The faces of a chunk are added with a single call and share one
+ * Handle. After editing blocks, update(isometric) only replaces the faces of the chunks that were touched.
+ *
+ * The world is not a Shape, it is added with update(isometric) instead of Isometric.add.
+ */
+public class VoxelWorld {
+
+    public static final int CHUNK_SIZE = 16;
+
+    private static final int CHUNK_BITS = 4;
+
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final Point origin;
+
+    private final Map<Long, Chunk> chunks = new HashMap<>();
+
+    //the isometric the faces have been added to
+    private Isometric isometric;
+
+    public VoxelWorld() {
+        this(Point.ORIGIN);
+    }
+
+    public VoxelWorld(Point origin) {
+        this.origin = origin;
+    }
+
+    /**
+     * Set the block at a position, a null color removes it
+     */
+    public void setBlock(int x, int y, int z, Color color) {
+        Chunk chunk = this.chunks.get(chunkKey(x >> CHUNK_BITS, y >> CHUNK_BITS, z >> CHUNK_BITS));
+        if (chunk == null) {
+            if (color == null) {
+                return;
+            }
+            chunk = new Chunk(x >> CHUNK_BITS, y >> CHUNK_BITS, z >> CHUNK_BITS);
+            this.chunks.put(chunkKey(chunk.x, chunk.y, chunk.z), chunk);
+        }
+        if (!chunk.set(x & CHUNK_MASK, y & CHUNK_MASK, z & CHUNK_MASK, color)) {
+            return;
+        }
+        chunk.dirty = true;
+        //the faces of the neighbouring chunk facing this block change as well
+        markDirty(x - 1, y, z, (x & CHUNK_MASK) == 0);
+        markDirty(x + 1, y, z, (x & CHUNK_MASK) == CHUNK_MASK);
+        markDirty(x, y - 1, z, (y & CHUNK_MASK) == 0);
+        markDirty(x, y + 1, z, (y & CHUNK_MASK) == CHUNK_MASK);
+        markDirty(x, y, z - 1, (z & CHUNK_MASK) == 0);
+        markDirty(x, y, z + 1, (z & CHUNK_MASK) == CHUNK_MASK);
+    }
+
+    public Color getBlock(int x, int y, int z) {
+        Chunk chunk = this.chunks.get(chunkKey(x >> CHUNK_BITS, y >> CHUNK_BITS, z >> CHUNK_BITS));
+        return chunk == null ? null : chunk.get(x & CHUNK_MASK, y & CHUNK_MASK, z & CHUNK_MASK);
+    }
+
+    /**
+     * Add the faces of all changed chunks to the isometric and replace their old faces.
+     * The first update with an isometric adds every chunk.
+     */
+    public void update(Isometric isometric) {
+        if (this.isometric != isometric) {
+            this.isometric = isometric;
+            for (Chunk chunk : this.chunks.values()) {
+                chunk.handle = null;
+                chunk.dirty = true;
+            }
+        }
+        List<Chunk> dirty = new ArrayList<>();
+        for (Chunk chunk : this.chunks.values()) {
+            if (chunk.dirty) {
+                dirty.add(chunk);
+            }
+        }
+        List<Path> faces = new ArrayList<>();
+        List<Color> colors = new ArrayList<>();
+        for (int i = 0; i < dirty.size(); i++) {
+            Chunk chunk = dirty.get(i);
+            faces.clear();
+            colors.clear();
+            emit(chunk, faces, colors);
+            Path[] paths = faces.toArray(new Path[faces.size()]);
+            Color[] pathColors = colors.toArray(new Color[colors.size()]);
+            if (chunk.handle != null && !chunk.handle.isRemoved()) {
+                if (paths.length == 0) {
+                    chunk.handle.remove();
+                    chunk.handle = null;
+                } else {
+                    chunk.handle.setPaths(paths, pathColors);
+                }
+            } else if (paths.length > 0) {
+                chunk.handle = isometric.add(paths, pathColors, null);
+            } else {
+                chunk.handle = null;
+            }
+            chunk.dirty = false;
+            if (chunk.blockCount == 0) {
+                this.chunks.remove(chunkKey(chunk.x, chunk.y, chunk.z));
+            }
+        }
+    }
+
+    /**
+     * Number of faces currently added to the isometric
+     */
+    public int getFaceCount() {
+        int count = 0;
+        for (Chunk chunk : this.chunks.values()) {
+            if (chunk.handle != null && !chunk.handle.isRemoved()) {
+                count += chunk.handle.getItems().size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Handles of the chunks that have faces in the isometric, one per chunk
+     */
+    public List<Isometric.Handle> getHandles() {
+        List<Isometric.Handle> handles = new ArrayList<>();
+        for (Chunk chunk : this.chunks.values()) {
+            if (chunk.handle != null && !chunk.handle.isRemoved()) {
+                handles.add(chunk.handle);
+            }
+        }
+        return handles;
+    }
+
+    private void markDirty(int x, int y, int z, boolean otherChunk) {
+        if (otherChunk) {
+            Chunk chunk = this.chunks.get(chunkKey(x >> CHUNK_BITS, y >> CHUNK_BITS, z >> CHUNK_BITS));
+            if (chunk != null) {
+                chunk.dirty = true;
+            }
+        }
+    }
+
+    private boolean isSolid(int x, int y, int z) {
+        return getBlock(x, y, z) != null;
+    }
+
+    /**
+     * Collect the exposed faces of a chunk, with the same points as the faces of a Prism
+     */
+    private void emit(Chunk chunk, List<Path> faces, List<Color> colors) {
+        int baseX = chunk.x << CHUNK_BITS, baseY = chunk.y << CHUNK_BITS, baseZ = chunk.z << CHUNK_BITS;
+        for (int z = 0; z < CHUNK_SIZE; z++) {
+            for (int y = 0; y < CHUNK_SIZE; y++) {
+                for (int x = 0; x < CHUNK_SIZE; x++) {
+                    int block = Chunk.block(x, y, z);
+                    Color color = chunk.get(block);
+                    if (color == null) {
+                        continue;
+                    }
+                    int blockX = baseX + x, blockY = baseY + y, blockZ = baseZ + z;
+                    //neighbours inside the chunk are read from its indices, only border blocks look up the next chunk
+                    boolean solidLeft = x > 0 ? chunk.isSolid(block - 1) : isSolid(blockX - 1, blockY, blockZ);
+                    boolean solidRight = x < CHUNK_MASK ? chunk.isSolid(block + 1) : isSolid(blockX + 1, blockY, blockZ);
+                    boolean solidFront = y > 0 ? chunk.isSolid(block - CHUNK_SIZE) : isSolid(blockX, blockY - 1, blockZ);
+                    boolean solidBack = y < CHUNK_MASK ? chunk.isSolid(block + CHUNK_SIZE) : isSolid(blockX, blockY + 1, blockZ);
+                    boolean solidBelow = z > 0 ? chunk.isSolid(block - CHUNK_SIZE * CHUNK_SIZE) : isSolid(blockX, blockY, blockZ - 1);
+                    boolean solidAbove = z < CHUNK_MASK ? chunk.isSolid(block + CHUNK_SIZE * CHUNK_SIZE) : isSolid(blockX, blockY, blockZ + 1);
+                    double ox = this.origin.getX() + blockX, oy = this.origin.getY() + blockY, oz = this.origin.getZ() + blockZ;
+
+                    /* Squares parallel to the x-axis */
+                    if (!solidFront || !solidBack) {
+                        PackedPath face1 = new PackedPath(new double[]{
+                                ox, oy, oz,
+                                ox + 1, oy, oz,
+                                ox + 1, oy, oz + 1,
+                                ox, oy, oz + 1
+                        });
+                        if (!solidFront) {
+                            faces.add(face1);
+                            colors.add(color);
+                        }
+                        if (!solidBack) {
+                            faces.add(face1.reverse().translatePoints(0, 1, 0));
+                            colors.add(color);
+                        }
+                    }
+
+                    /* Squares parallel to the y-axis */
+                    if (!solidLeft || !solidRight) {
+                        PackedPath face2 = new PackedPath(new double[]{
+                                ox, oy, oz,
+                                ox, oy, oz + 1,
+                                ox, oy + 1, oz + 1,
+                                ox, oy + 1, oz
+                        });
+                        if (!solidLeft) {
+                            faces.add(face2);
+                            colors.add(color);
+                        }
+                        if (!solidRight) {
+                            faces.add(face2.reverse().translatePoints(1, 0, 0));
+                            colors.add(color);
+                        }
+                    }
+
+                    /* Squares parallel to the xy-plane */
+                    if (!solidBelow || !solidAbove) {
+                        PackedPath face3 = new PackedPath(new double[]{
+                                ox, oy, oz,
+                                ox + 1, oy, oz,
+                                ox + 1, oy + 1, oz,
+                                ox, oy + 1, oz
+                        });
+                        if (!solidBelow) {
+                            faces.add(face3.reverse());
+                            colors.add(color);
+                        }
+                        if (!solidAbove) {
+                            faces.add(face3.translatePoints(0, 0, 1));
+                            colors.add(color);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static long chunkKey(int x, int y, int z) {
+        return ((long) (x & 0x1FFFFF) << 42) | ((long) (y & 0x1FFFFF) << 21) | (z & 0x1FFFFF);
+    }
+
+    /**
+     * Blocks of one chunk as indices into a palette of colors, index 0 is air.
+     * Every palette entry counts its blocks and is reused once no block has its color any more,
+     * so the palette never holds more than the 4096 colors a chunk can show at once.
+     * Indices are stored as bytes until the chunk needs more than 255 colors at the same time.
+     */
+    private static final class Chunk {
+
+        final int x, y, z;
+
+        private Color[] palette = new Color[]{null};
+        private int[] paletteCounts = new int[1];
+        private int paletteSize = 1;
+        private final Map<Color, Integer> paletteIndices = new HashMap<>();
+        //palette entries without blocks, reused before the palette grows
+        private int[] freeIndices = new int[0];
+        private int freeCount;
+
+        private byte[] indices = new byte[CHUNK_SIZE * CHUNK_SIZE * CHUNK_SIZE];
+        private short[] wideIndices;
+
+        int blockCount;
+
+        boolean dirty;
+
+        //the faces added to the isometric
+        Isometric.Handle handle;
+
+        Chunk(int x, int y, int z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        Color get(int x, int y, int z) {
+            return get(block(x, y, z));
+        }
+
+        Color get(int block) {
+            return this.palette[index(block)];
+        }
+
+        boolean isSolid(int block) {
+            return index(block) != 0;
+        }
+
+        /**
+         * @return if the block changed
+         */
+        boolean set(int x, int y, int z, Color color) {
+            int block = block(x, y, z);
+            int previous = index(block);
+            if (color == null ? previous == 0 : color.equals(this.palette[previous])) {
+                return false;
+            }
+            //release first, so a recolored block can take over its own entry
+            release(previous);
+            int index = color == null ? 0 : acquire(color);
+            if (this.wideIndices != null) {
+                this.wideIndices[block] = (short) index;
+            } else {
+                this.indices[block] = (byte) index;
+            }
+            if (previous == 0) {
+                this.blockCount++;
+            } else if (index == 0) {
+                this.blockCount--;
+            }
+            return true;
+        }
+
+        private int index(int block) {
+            return this.wideIndices != null ? this.wideIndices[block] & 0xFFFF : this.indices[block] & 0xFF;
+        }
+
+        private void release(int index) {
+            if (index == 0 || --this.paletteCounts[index] > 0) {
+                return;
+            }
+            this.paletteIndices.remove(this.palette[index]);
+            this.palette[index] = null;
+            if (this.freeCount == this.freeIndices.length) {
+                this.freeIndices = Arrays.copyOf(this.freeIndices, Math.max(8, this.freeCount * 2));
+            }
+            this.freeIndices[this.freeCount++] = index;
+        }
+
+        private int acquire(Color color) {
+            Integer existing = this.paletteIndices.get(color);
+            int index;
+            if (existing != null) {
+                index = existing;
+            } else {
+                if (this.freeCount > 0) {
+                    index = this.freeIndices[--this.freeCount];
+                } else {
+                    if (this.paletteSize == this.palette.length) {
+                        this.palette = Arrays.copyOf(this.palette, this.palette.length * 2);
+                        this.paletteCounts = Arrays.copyOf(this.paletteCounts, this.palette.length);
+                    }
+                    index = this.paletteSize++;
+                }
+                if (index > 0xFF && this.wideIndices == null) {
+                    //the byte indices are full, switch to shorts
+                    this.wideIndices = new short[this.indices.length];
+                    for (int i = 0; i < this.indices.length; i++) {
+                        this.wideIndices[i] = (short) (this.indices[i] & 0xFF);
+                    }
+                    this.indices = null;
+                }
+                this.palette[index] = color;
+                this.paletteIndices.put(color, index);
+            }
+            this.paletteCounts[index]++;
+            return index;
+        }
+
+        static int block(int x, int y, int z) {
+            return (z * CHUNK_SIZE + y) * CHUNK_SIZE + x;
+        }
+    }
+}
@@ -30,10 +30,15 @@ public class IsometricDrawing extends AndroidNonvisibleComponent {
   private IsometricView isometricView;
 
   private boolean sort = true;
+  private boolean parallelSort = false;
   private boolean cull = false;
   private boolean boundsCheck = false;
   private boolean reverseSortForLookup = false;
   private boolean touchRadiusLookup = false;
+  private boolean idBufferPicking = false;
+  private boolean tileCache = false;
+  private boolean asyncPreparation = false;
+  private boolean levelOfDetail = false;
 
   private double touchRadius = 1;
   private int bgColor = android.graphics.Color.TRANSPARENT;
@@ -79,6 +84,36 @@ public class IsometricDrawing extends AndroidNonvisibleComponent {
     this.sort = sort;
   }
 
+  @SimpleProperty(description = "Whether to run the sorting of large drawings on all processor cores. The result is the same as a normal sort.")
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_BOOLEAN, defaultValue = "False")
+  public void ParallelSort(boolean parallelSort) {
+    this.parallelSort = parallelSort;
+  }
+
+  @SimpleProperty(description = "Whether to find the touched item by reading an offscreen picture of the item indices instead of testing the shapes. Only used together with ReverseSortForLookup.")
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_BOOLEAN, defaultValue = "False")
+  public void IdBufferPicking(boolean idBufferPicking) {
+    this.idBufferPicking = idBufferPicking;
+  }
+
+  @SimpleProperty(description = "Whether to keep the rendered drawing in tiles and only redraw the tiles with changed items. Uses more memory.")
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_BOOLEAN, defaultValue = "False")
+  public void TileCache(boolean tileCache) {
+    this.tileCache = tileCache;
+  }
+
+  @SimpleProperty(description = "Whether to sort the drawing on a background thread. The view keeps showing the last finished drawing until the new one is ready.")
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_BOOLEAN, defaultValue = "False")
+  public void AsyncPreparation(boolean asyncPreparation) {
+    this.asyncPreparation = asyncPreparation;
+  }
+
+  @SimpleProperty(description = "Whether to draw cylinders and circles with fewer corners when they are small on the screen and to leave out faces smaller than half a pixel.")
+  @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_BOOLEAN, defaultValue = "False")
+  public void LevelOfDetail(boolean levelOfDetail) {
+    this.levelOfDetail = levelOfDetail;
+  }
+
   @SimpleProperty(description = "Whether to cull the drawing items. This improves drawing speed by not considering items that are outside of view bounds.")
   @DesignerProperty(editorType = PropertyTypeConstants.PROPERTY_TYPE_BOOLEAN, defaultValue = "False")
   public void Cull(boolean cull) {
@@ -122,10 +157,17 @@ public class IsometricDrawing extends AndroidNonvisibleComponent {
     isometricView.setLayoutParams(params);
     isometricView.setBackgroundColor(bgColor);
     isometricView.setSort(sort);
+    isometricView.setParallelSort(parallelSort);
     isometricView.setCull(cull);
     isometricView.setBoundsCheck(boundsCheck);
     isometricView.setReverseSortForLookup(reverseSortForLookup);
     isometricView.setTouchRadiusLookup(touchRadiusLookup);
+    isometricView.setIdBufferPicking(idBufferPicking, 1);
+    isometricView.setTileCache(tileCache);
+    isometricView.setAsyncPreparation(asyncPreparation);
+    if (levelOfDetail) {
+      isometricView.setLevelOfDetail(0.5, 0.5);
+    }
     isometricView.setTouchRadius(touchRadius);
     isometricView.setClickListener(new IsometricView.OnItemClickListener() {
       @Override
@@ -206,6 +248,59 @@ public class IsometricDrawing extends AndroidNonvisibleComponent {
     }
   }
 
+  @SimpleFunction(description = "Changes the direction (x, y, z) the light comes from and the light color. The drawing is recolored without being sorted again.")
+  public void SetLight(double x, double y, double z, Object color) {
+    if (isometricView != null) {
+      if (color instanceof Color) {
+        isometricView.setLight(new Vector(x, y, z), (Color) color);
+      } else {
+        OnErrorOccurred("Invalid color type for set light", "SetLight");
+      }
+    } else {
+      OnErrorOccurred("Isometric Drawing view is null", "SetLight");
+    }
+  }
+
+  @SimpleFunction(description = "Zooms the drawing by the given factor around the point (focusX, focusY) of the view. The drawing is not sorted again.")
+  public void Zoom(double factor, double focusX, double focusY) {
+    if (isometricView != null) {
+      if (factor > 0) {
+        isometricView.zoom(factor, focusX, focusY);
+      } else {
+        OnErrorOccurred("Zoom factor has to be positive", "Zoom");
+      }
+    } else {
+      OnErrorOccurred("Isometric Drawing view is null", "Zoom");
+    }
+  }
+
+  @SimpleFunction(description = "Moves the drawing by dx and dy pixels. The drawing is not sorted again.")
+  public void Pan(double dx, double dy) {
+    if (isometricView != null) {
+      isometricView.pan(dx, dy);
+    } else {
+      OnErrorOccurred("Isometric Drawing view is null", "Pan");
+    }
+  }
+
+  @SimpleFunction(description = "Zooms and moves the drawing so that all shapes fit into the view, keeping the given padding in pixels.")
+  public void FitToScene(double padding) {
+    if (isometricView != null) {
+      isometricView.fitToScene(padding);
+    } else {
+      OnErrorOccurred("Isometric Drawing view is null", "FitToScene");
+    }
+  }
+
+  @SimpleFunction(description = "Resets the zoom and the position of the drawing.")
+  public void ResetCamera() {
+    if (isometricView != null) {
+      isometricView.resetCamera();
+    } else {
+      OnErrorOccurred("Isometric Drawing view is null", "ResetCamera");
+    }
+  }
+
   @SimpleFunction(description = "Creates a color with the specified RGB values.")
   public Object CreateColor(int color) {
     return new Color(ColorUtils.getRed(color), ColorUtils.getGreen(color), ColorUtils.getBlue(color));
@@ -384,7 +479,7 @@ public class IsometricDrawing extends AndroidNonvisibleComponent {
     }
   }
   */
-  @SimpleFunction(description = "Translates a point, shape, or path by the given dx, dy, and dz.")
+  @SimpleFunction(description = "Translates a point, shape, path, or transform by the given dx, dy, and dz.")
   public Object Translate(Object main, double dx, double dy, double dz) {
     if (main != null) {
       try {
@@ -423,7 +518,7 @@ public class IsometricDrawing extends AndroidNonvisibleComponent {
     }
   }
   */
-  @SimpleFunction(description = "Scales a point, shape, or path from a given originPoint, dx, dy, and dz.")
+  @SimpleFunction(description = "Scales a point, shape, path, or transform from a given originPoint, dx, dy, and dz.")
   public Object Scale(Object main, Object originPoint, double dx, double dy, double dz) {
     if (main != null && originPoint instanceof Point) {
       try {
@@ -459,7 +554,7 @@ public class IsometricDrawing extends AndroidNonvisibleComponent {
     }
   }
   */
-  @SimpleFunction(description = "Rotates a point, shape, or path about the origin on the X axis.")
+  @SimpleFunction(description = "Rotates a point, shape, path, or transform about the origin on the X axis.")
   public Object RotateX(Object main, Object originPoint, double angle) {
     if (main != null && originPoint instanceof Point) {
       try {
@@ -496,7 +591,7 @@ public class IsometricDrawing extends AndroidNonvisibleComponent {
   }
   */
 
-  @SimpleFunction(description = "Rotates a point, shape, or path about the origin on the Y axis.")
+  @SimpleFunction(description = "Rotates a point, shape, path, or transform about the origin on the Y axis.")
   public Object RotateY(Object main, Object originPoint, double angle) {
     if (main != null && originPoint instanceof Point) {
       try {
@@ -531,7 +626,7 @@ public class IsometricDrawing extends AndroidNonvisibleComponent {
     }
   }
   */
-  @SimpleFunction(description = "Rotates a point, shape, or path about the origin on the Z axis.")
+  @SimpleFunction(description = "Rotates a point, shape, path, or transform about the origin on the Z axis.")
   public Object RotateZ(Object main, Object originPoint, double angle) {
     if (main != null && originPoint instanceof Point) {
       try {
@@ -549,4 +644,25 @@ public class IsometricDrawing extends AndroidNonvisibleComponent {
     return null;
   }
 
+  @SimpleFunction(description = "Creates a transform that does not change anything. Translate, Scale and RotateX, Y, Z add steps to a transform, ApplyTransform then applies all steps in one pass.")
+  public Object CreateTransform() {
+    return Transform.IDENTITY;
+  }
+
+  @SimpleFunction(description = "Applies a transform to a point, shape, or path.")
+  public Object ApplyTransform(Object main, Object transform) {
+    if (!(transform instanceof Transform)) {
+      OnErrorOccurred("Invalid transform", "ApplyTransform");
+    } else if (main instanceof Point) {
+      return ((Point) main).transform((Transform) transform);
+    } else if (main instanceof Shape) {
+      return ((Shape) main).transform((Transform) transform);
+    } else if (main instanceof Path) {
+      return ((Path) main).transform((Transform) transform);
+    } else {
+      OnErrorOccurred("Invalid main object for transforming", "ApplyTransform");
+    }
+    return null;
+  }
+
 }